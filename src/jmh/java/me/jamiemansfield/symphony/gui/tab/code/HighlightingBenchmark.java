@@ -0,0 +1,197 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.gui.tab.code;
+
+import me.jamiemansfield.symphony.decompiler.Decompiler;
+import me.jamiemansfield.symphony.decompiler.WrappedBytecode;
+import me.jamiemansfield.symphony.decompiler.cfr.CfrDecompiler;
+import org.cadixdev.bombe.asm.jar.ClassProvider;
+import org.fxmisc.richtext.StyleSpans;
+import org.fxmisc.richtext.StyleSpansBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the {@link JavaLexer lexer} with the regex the highlighting
+ * was previously computed with, over a corpus of decompiled sources.
+ * <p>
+ * The corpus is decompiled (with CFR) from classes of the running JDK,
+ * with the sources repeated until the corpus is at least of the given
+ * size.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class HighlightingBenchmark {
+
+    private static final String[] CLASSES = {
+            "java/lang/Character",
+            "java/lang/Integer",
+            "java/lang/String",
+            "java/math/BigDecimal",
+            "java/math/BigInteger",
+            "java/util/ArrayList",
+            "java/util/Arrays",
+            "java/util/Collections",
+            "java/util/Formatter",
+            "java/util/HashMap",
+            "java/util/TreeMap",
+            "java/util/concurrent/ConcurrentHashMap",
+            "java/util/regex/Pattern",
+    };
+
+    // The minimum size of the corpus, in characters
+    @Param({ "100000", "2000000" })
+    public int size;
+
+    private String[] corpus;
+
+    @Setup
+    public void setup() {
+        final ClassProvider jdk = HighlightingBenchmark::readClass;
+        final Decompiler decompiler = new CfrDecompiler();
+
+        final List<String> sources = new ArrayList<>();
+        for (final String klass : CLASSES) {
+            final byte[] bytecode = jdk.get(klass);
+            if (bytecode == null) continue;
+            final String source = decompiler.decompile(jdk, new WrappedBytecode(klass + ".class", bytecode));
+            if (source != null) sources.add(source);
+        }
+        if (sources.isEmpty()) throw new IllegalStateException("Failed to decompile the corpus");
+
+        // note: each source is highlighted on its own, as it would be in its tab - the
+        //       regex doesn't know char literals, so a '"' would spill into the next
+        final List<String> corpus = new ArrayList<>();
+        for (int length = 0, i = 0; length < this.size; i++) {
+            final String source = sources.get(i % sources.size());
+            corpus.add(source);
+            length += source.length();
+        }
+        this.corpus = corpus.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public void lexer(final Blackhole blackhole) {
+        for (final String source : this.corpus) {
+            blackhole.consume(JavaLexer.lex(source));
+        }
+    }
+
+    @Benchmark
+    public void regex(final Blackhole blackhole) {
+        for (final String source : this.corpus) {
+            blackhole.consume(RegexHighlighting.compute(source));
+        }
+    }
+
+    private static byte[] readClass(final String klass) {
+        try (final InputStream in = ClassLoader.getSystemResourceAsStream(klass + ".class")) {
+            if (in == null) return null;
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+        catch (final IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * The regex highlighting, as it was before {@link JavaLexer}.
+     */
+    private static final class RegexHighlighting {
+
+        private static final String[] KEYWORDS = new String[] {
+                "abstract", "assert", "boolean", "break", "byte",
+                "case", "catch", "char", "class", "const",
+                "continue", "default", "do", "double", "else",
+                "enum", "extends", "final", "finally", "float",
+                "for", "goto", "if", "implements", "import",
+                "instanceof", "int", "interface", "long", "native",
+                "new", "package", "private", "protected", "public",
+                "return", "short", "static", "strictfp", "super",
+                "switch", "synchronized", "this", "throw", "throws",
+                "transient", "try", "void", "volatile", "while"
+        };
+
+        private static final String KEYWORD_PATTERN = "\\b(" + String.join("|", KEYWORDS) + ")\\b";
+        private static final String PAREN_PATTERN = "\\(|\\)";
+        private static final String BRACE_PATTERN = "\\{|\\}";
+        private static final String BRACKET_PATTERN = "\\[|\\]";
+        private static final String SEMICOLON_PATTERN = "\\;";
+        private static final String STRING_PATTERN = "\"([^\"\\\\]|\\\\.)*\"";
+        private static final String COMMENT_PATTERN = "//[^\n]*" + "|" + "/\\*[\\s\\S]*?\\*/";
+
+        private static final Pattern PATTERN = Pattern.compile(
+                "(?<KEYWORD>" + KEYWORD_PATTERN + ")"
+                + "|(?<PAREN>" + PAREN_PATTERN + ")"
+                + "|(?<BRACE>" + BRACE_PATTERN + ")"
+                + "|(?<BRACKET>" + BRACKET_PATTERN + ")"
+                + "|(?<SEMICOLON>" + SEMICOLON_PATTERN + ")"
+                + "|(?<STRING>" + STRING_PATTERN + ")"
+                + "|(?<COMMENT>" + COMMENT_PATTERN + ")"
+        );
+
+        static StyleSpans<Collection<String>> compute(final String text) {
+            final Matcher matcher = PATTERN.matcher(text);
+            int lastKwEnd = 0;
+            final StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
+
+            while (matcher.find()) {
+                final String styleClass =
+                        matcher.group("KEYWORD") != null ? "keyword" :
+                        matcher.group("PAREN") != null ? "paren" :
+                        matcher.group("BRACE") != null ? "brace" :
+                        matcher.group("BRACKET") != null ? "bracket" :
+                        matcher.group("SEMICOLON") != null ? "semicolon" :
+                        matcher.group("STRING") != null ? "string" :
+                        "comment";
+                spansBuilder.add(Collections.emptyList(), matcher.start() - lastKwEnd);
+                spansBuilder.add(Collections.singleton(styleClass), matcher.end() - matcher.start());
+                lastKwEnd = matcher.end();
+            }
+
+            spansBuilder.add(Collections.emptyList(), text.length() - lastKwEnd);
+            return spansBuilder.create();
+        }
+
+    }
+
+}
@@ -0,0 +1,251 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import me.jamiemansfield.symphony.decompiler.Decompiler;
+import me.jamiemansfield.symphony.decompiler.WrappedBytecode;
+import me.jamiemansfield.symphony.decompiler.cfr.CfrDecompiler;
+import org.cadixdev.bombe.asm.jar.ClassProvider;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Measures how the throughput of decompiling scales with the number of
+ * threads decompiling at once - as when several tabs are opened - with
+ * and without classes being renamed meanwhile.
+ * <p>
+ * Each operation decompiles a batch of classes, from a generated jar,
+ * across the given number of threads. Each decompile is given the
+ * snapshot taken when it was submitted, as {@code CodeTab} does, and
+ * when renaming a class is renamed (and a snapshot taken) before each
+ * submission - on the benchmark thread, standing in for the JavaFX
+ * application thread.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ConcurrentDecompileBenchmark {
+
+    private static final int CLASSES = 256;
+    private static final int METHODS = 16;
+    private static final int BATCH = 32;
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    @Param({ "false", "true" })
+    public boolean renaming;
+
+    private Path path;
+    private Jar jar;
+    private ExecutorService pool;
+    private final Decompiler decompiler = new UncachedDecompiler(new CfrDecompiler());
+    private int next;
+    private int renames;
+
+    @Setup
+    public void setup() throws IOException {
+        this.path = Files.createTempFile("symphony-benchmark", ".jar");
+        writeJar(this.path);
+        this.jar = new Jar(this.path);
+        this.jar.awaitIndex();
+        this.pool = Executors.newFixedThreadPool(this.threads);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.pool.shutdownNow();
+        this.jar.close();
+        Files.deleteIfExists(this.path);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void decompile(final Blackhole blackhole) throws InterruptedException, ExecutionException {
+        final List<Future<String>> decompiles = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            if (this.renaming) {
+                this.jar.getMappings().getOrCreateClassMapping(className(this.renames % CLASSES))
+                        .setDeobfuscatedName("renamed/Class" + this.renames++);
+            }
+            final Jar.Snapshot snapshot = this.jar.snapshot();
+            final String klass = className(this.next++ % CLASSES);
+            decompiles.add(this.pool.submit(() -> snapshot.decompile(this.decompiler, klass)));
+        }
+        for (final Future<String> decompile : decompiles) {
+            blackhole.consume(decompile.get());
+        }
+    }
+
+    private static String className(final int index) {
+        return "a/C" + index;
+    }
+
+    /**
+     * Writes a jar of classes that each extend, and call into, the
+     * previous class - so renaming a class affects those around it.
+     */
+    private static void writeJar(final Path path) throws IOException {
+        try (final OutputStream out = Files.newOutputStream(path);
+             final JarOutputStream jar = new JarOutputStream(out)) {
+            for (int i = 0; i < CLASSES; i++) {
+                jar.putNextEntry(new JarEntry(className(i) + ".class"));
+                jar.write(writeClass(i));
+                jar.closeEntry();
+            }
+        }
+    }
+
+    private static byte[] writeClass(final int index) {
+        final String name = className(index);
+        final String parent = index == 0 ? "java/lang/Object" : className(index - 1);
+
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, parent, null);
+        writer.visitField(Opcodes.ACC_PRIVATE, "value", "I", null, null).visitEnd();
+
+        final MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, parent, "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        for (int method = 0; method < METHODS; method++) {
+            // int m<n>(int count) {
+            //     int total = 0;
+            //     for (int i = 0; i < count; i++) {
+            //         if (i % 3 == 0) total += new <parent>().m<n>(i); (or this.value, for the root)
+            //         else total ^= i;
+            //     }
+            //     return total;
+            // }
+            final MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, "m" + method, "(I)I", null, null);
+            final Label loop = new Label();
+            final Label otherwise = new Label();
+            final Label increment = new Label();
+            final Label end = new Label();
+            mv.visitCode();
+            mv.visitInsn(Opcodes.ICONST_0);
+            mv.visitVarInsn(Opcodes.ISTORE, 2);
+            mv.visitInsn(Opcodes.ICONST_0);
+            mv.visitVarInsn(Opcodes.ISTORE, 3);
+            mv.visitLabel(loop);
+            mv.visitVarInsn(Opcodes.ILOAD, 3);
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+            mv.visitVarInsn(Opcodes.ILOAD, 3);
+            mv.visitInsn(Opcodes.ICONST_3);
+            mv.visitInsn(Opcodes.IREM);
+            mv.visitJumpInsn(Opcodes.IFNE, otherwise);
+            mv.visitVarInsn(Opcodes.ILOAD, 2);
+            if (index == 0) {
+                mv.visitVarInsn(Opcodes.ALOAD, 0);
+                mv.visitFieldInsn(Opcodes.GETFIELD, name, "value", "I");
+            }
+            else {
+                mv.visitTypeInsn(Opcodes.NEW, parent);
+                mv.visitInsn(Opcodes.DUP);
+                mv.visitMethodInsn(Opcodes.INVOKESPECIAL, parent, "<init>", "()V", false);
+                mv.visitVarInsn(Opcodes.ILOAD, 3);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, parent, "m" + method, "(I)I", false);
+            }
+            mv.visitInsn(Opcodes.IADD);
+            mv.visitVarInsn(Opcodes.ISTORE, 2);
+            mv.visitJumpInsn(Opcodes.GOTO, increment);
+            mv.visitLabel(otherwise);
+            mv.visitVarInsn(Opcodes.ILOAD, 2);
+            mv.visitVarInsn(Opcodes.ILOAD, 3);
+            mv.visitInsn(Opcodes.IXOR);
+            mv.visitVarInsn(Opcodes.ISTORE, 2);
+            mv.visitLabel(increment);
+            mv.visitIincInsn(3, 1);
+            mv.visitJumpInsn(Opcodes.GOTO, loop);
+            mv.visitLabel(end);
+            mv.visitVarInsn(Opcodes.ILOAD, 2);
+            mv.visitInsn(Opcodes.IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * A decompiler that bypasses the source caches, so each decompile
+     * is measured in full rather than (after the first) looked up.
+     */
+    private static final class UncachedDecompiler implements Decompiler {
+
+        private final Decompiler decompiler;
+
+        UncachedDecompiler(final Decompiler decompiler) {
+            this.decompiler = decompiler;
+        }
+
+        @Override
+        public String decompile(final ClassProvider classProvider, final WrappedBytecode klass, final WrappedBytecode... innerKlasses) {
+            return this.decompiler.decompile(classProvider, klass, innerKlasses);
+        }
+
+        @Override
+        public String getName() {
+            return this.decompiler.getName();
+        }
+
+        @Override
+        public boolean isCacheable() {
+            return false;
+        }
+
+        @Override
+        public OutputType getOutputType() {
+            return this.decompiler.getOutputType();
+        }
+
+    }
+
+}
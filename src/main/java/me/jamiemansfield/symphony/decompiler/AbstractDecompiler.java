@@ -7,6 +7,8 @@
 
 package me.jamiemansfield.symphony.decompiler;
 
+import java.util.concurrent.CancellationException;
+
 /**
  * An base implementation of {@link Decompiler} with some
  * convenience methods.
@@ -40,4 +42,17 @@ public abstract class AbstractDecompiler implements Decompiler {
         return klassName.substring(index + 1);
     }
 
+    /**
+     * Stops the decompile should the current thread have been interrupted,
+     * as it is when the decompile is cancelled.
+     * <p>
+     * The thread's interrupted status is left set, so later checks stop
+     * the decompile too.
+     *
+     * @throws CancellationException Should the thread have been interrupted
+     */
+    public static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException("Decompile was cancelled");
+    }
+
 }
@@ -9,6 +9,9 @@ package me.jamiemansfield.symphony.decompiler;
 
 import org.cadixdev.bombe.asm.jar.ClassProvider;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * A representation of a decompiler, that can be used by Symphony.
  *
@@ -25,6 +28,8 @@ public interface Decompiler {
      * @param klass The top-level class to decompile
      * @param innerKlasses The inner (and anonymous) classes
      * @return The re-constructed source code
+     * @throws java.util.concurrent.CancellationException Should the
+     *         decompile have been cancelled, by interrupting its thread
      */
     String decompile(final ClassProvider classProvider, final WrappedBytecode klass, final WrappedBytecode... innerKlasses);
 
@@ -35,6 +40,26 @@ public interface Decompiler {
      */
     String getName();
 
+    /**
+     * Gets the options the decompiler is configured with, that affect
+     * its output - decompiled sources are cached against them.
+     *
+     * @return The options
+     */
+    default Map<String, ?> getOptions() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Gets whether the decompiler's output should be cached - which is
+     * not worthwhile for decompilers cheaper than the caches themselves.
+     *
+     * @return {@code true} if the output should be cached
+     */
+    default boolean isCacheable() {
+        return true;
+    }
+
     /**
      * Gets the output type of the decompiler.
      *
@@ -7,6 +7,8 @@
 
 package me.jamiemansfield.symphony.decompiler;
 
+import me.jamiemansfield.symphony.decompiler.textifier.TexifierDecompiler;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -51,6 +53,29 @@ public final class DecompilerManager {
         return DEFAULT;
     }
 
+    /**
+     * Gets the decompilers to try, in order, should the given decompiler
+     * fail (or take too long) - the other decompilers producing Java, and
+     * lastly the {@link TexifierDecompiler textifier}, which always
+     * finishes quickly.
+     *
+     * @param decompiler The decompiler to try first
+     * @return The decompilers, starting with the given decompiler
+     */
+    public static List<Decompiler> getFallbacks(final Decompiler decompiler) {
+        final List<Decompiler> fallbacks = new ArrayList<>();
+        fallbacks.add(decompiler);
+        Decompiler textifier = null;
+        for (final Decompiler fallback : getDecompilers()) {
+            if (fallback instanceof TexifierDecompiler) textifier = fallback;
+            else if (fallback != decompiler && fallback.getOutputType() == Decompiler.OutputType.JAVA) fallbacks.add(fallback);
+        }
+        if (!(decompiler instanceof TexifierDecompiler)) {
+            fallbacks.add(textifier != null ? textifier : new TexifierDecompiler());
+        }
+        return Collections.unmodifiableList(fallbacks);
+    }
+
     private DecompilerManager() {
     }
 
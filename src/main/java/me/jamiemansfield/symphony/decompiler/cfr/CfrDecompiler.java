@@ -32,12 +32,15 @@ public class CfrDecompiler extends AbstractDecompiler {
     public String decompile(final ClassProvider classProvider, final WrappedBytecode klass, final WrappedBytecode... innerKlasses) {
         final String name = klass.getName().substring(0, klass.getName().length() - ".class".length());
 
+        checkInterrupted();
         final Sink sink = new Sink();
         final CfrDriver driver = new CfrDriver.Builder()
                 .withClassFileSource(new ClassProviderClassFileSource(classProvider))
                 .withOutputSink(sink)
                 .build();
         driver.analyse(Collections.singletonList(name + ".class"));
+        // note: CFR reports failures within its output, so may have carried on
+        checkInterrupted();
 
         return sink.getValue();
     }
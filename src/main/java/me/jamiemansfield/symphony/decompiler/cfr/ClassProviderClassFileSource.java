@@ -7,6 +7,7 @@
 
 package me.jamiemansfield.symphony.decompiler.cfr;
 
+import me.jamiemansfield.symphony.decompiler.AbstractDecompiler;
 import org.benf.cfr.reader.api.ClassFileSource;
 import org.benf.cfr.reader.bytecode.analysis.parse.utils.Pair;
 import org.cadixdev.bombe.asm.jar.ClassProvider;
@@ -45,6 +46,8 @@ class ClassProviderClassFileSource implements ClassFileSource {
 
     @Override
     public Pair<byte[], String> getClassFileContent(final String path) throws IOException {
+        // Classes are loaded throughout analysis, so this is a good place to stop
+        AbstractDecompiler.checkInterrupted();
         final String name = path.substring(0, path.length() - ".class".length());
         return new Pair<>(this.provider.get(name), path);
     }
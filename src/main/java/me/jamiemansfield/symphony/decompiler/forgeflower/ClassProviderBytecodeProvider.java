@@ -7,6 +7,7 @@
 
 package me.jamiemansfield.symphony.decompiler.forgeflower;
 
+import me.jamiemansfield.symphony.decompiler.AbstractDecompiler;
 import org.cadixdev.bombe.asm.jar.ClassProvider;
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
 
@@ -27,6 +28,7 @@ class ClassProviderBytecodeProvider implements IBytecodeProvider {
 
     @Override
     public byte[] getBytecode(final String externalPath, final String internalPath) {
+        AbstractDecompiler.checkInterrupted();
         return this.provider.get(internalPath);
     }
 
@@ -39,6 +39,7 @@ public class ForgeFlowerDecompiler extends AbstractDecompiler {
 
     @Override
     public String decompile(final ClassProvider classProvider, final WrappedBytecode klass, final WrappedBytecode... innerKlasses) {
+        checkInterrupted();
         // Create the Fernflower instance
         final Fernflower fernflower = new Fernflower(
                 new ClassProviderBytecodeProvider(classProvider),
@@ -56,6 +57,8 @@ public class ForgeFlowerDecompiler extends AbstractDecompiler {
         final String name = klass.getName().substring(0, klass.getName().length() - ".class".length());
         try {
             fernflower.decompileContext();
+            // note: Fernflower logs failures, and carries on with the next method
+            checkInterrupted();
             return fernflower.getClassContent(fernflower.getStructContext().getClass(name));
         }
         finally {
@@ -68,6 +71,11 @@ public class ForgeFlowerDecompiler extends AbstractDecompiler {
         return NAME;
     }
 
+    @Override
+    public Map<String, ?> getOptions() {
+        return DECOMPILER_OPTIONS;
+    }
+
     @Override
     public OutputType getOutputType() {
         return OutputType.JAVA;
@@ -7,11 +7,15 @@
 
 package me.jamiemansfield.symphony.decompiler.forgeflower;
 
+import me.jamiemansfield.symphony.decompiler.AbstractDecompiler;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 
+import java.util.concurrent.CancellationException;
+
 /**
  * An implementation of {@link IFernflowerLogger} that prints to
- * {@link System#out}.
+ * {@link System#out}, and stops the decompile before each method should
+ * it have been cancelled.
  *
  * @author Jamie Mansfield
  * @since 0.1.0
@@ -30,8 +34,14 @@ class SimpleFernflowerLogger extends IFernflowerLogger {
 
     @Override
     public void writeMessage(final String message, final Severity severity, final Throwable t) {
+        if (t instanceof CancellationException) return;
         System.out.println(message);
         t.printStackTrace();
     }
 
+    @Override
+    public void startMethod(final String methodName) {
+        AbstractDecompiler.checkInterrupted();
+    }
+
 }
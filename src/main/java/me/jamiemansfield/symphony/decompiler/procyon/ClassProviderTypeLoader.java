@@ -9,6 +9,7 @@ package me.jamiemansfield.symphony.decompiler.procyon;
 
 import com.strobel.assembler.metadata.Buffer;
 import com.strobel.assembler.metadata.ITypeLoader;
+import me.jamiemansfield.symphony.decompiler.AbstractDecompiler;
 import org.cadixdev.bombe.asm.jar.ClassProvider;
 
 /**
@@ -28,6 +29,7 @@ class ClassProviderTypeLoader implements ITypeLoader {
 
     @Override
     public boolean tryLoadType(final String internalName, final Buffer buffer) {
+        AbstractDecompiler.checkInterrupted();
         final byte[] klass = this.provider.get(internalName);
         if (klass == null) return false;
 
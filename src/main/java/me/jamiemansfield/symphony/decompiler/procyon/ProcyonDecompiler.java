@@ -16,6 +16,9 @@ import me.jamiemansfield.symphony.decompiler.Decompiler;
 import me.jamiemansfield.symphony.decompiler.WrappedBytecode;
 import org.cadixdev.bombe.asm.jar.ClassProvider;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * An implementation of {@link Decompiler} for Procyon.
  *
@@ -25,13 +28,15 @@ import org.cadixdev.bombe.asm.jar.ClassProvider;
 public class ProcyonDecompiler extends AbstractDecompiler {
 
     private static final String NAME =  "Procyon";
+    private static final boolean FORCE_EXPLICIT_IMPORTS = true;
 
     @Override
     public String decompile(final ClassProvider classProvider, final WrappedBytecode klass, final WrappedBytecode... innerKlasses) {
         final String name = klass.getName().substring(0, klass.getName().length() - ".class".length());
 
+        checkInterrupted();
         final DecompilerSettings settings = DecompilerSettings.javaDefaults();
-        settings.setForceExplicitImports(true);
+        settings.setForceExplicitImports(FORCE_EXPLICIT_IMPORTS);
         settings.setTypeLoader(new CompositeTypeLoader(
                 new ClassProviderTypeLoader(classProvider),
                 new ClasspathTypeLoader()
@@ -44,6 +49,7 @@ public class ProcyonDecompiler extends AbstractDecompiler {
                 settings
         );
 
+        checkInterrupted();
         return output.toString();
     }
 
@@ -52,6 +58,11 @@ public class ProcyonDecompiler extends AbstractDecompiler {
         return NAME;
     }
 
+    @Override
+    public Map<String, ?> getOptions() {
+        return Collections.singletonMap("forceExplicitImports", FORCE_EXPLICIT_IMPORTS);
+    }
+
     @Override
     public OutputType getOutputType() {
         return OutputType.JAVA;
@@ -0,0 +1,403 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.decompiler.skeleton;
+
+import me.jamiemansfield.symphony.decompiler.AbstractDecompiler;
+import me.jamiemansfield.symphony.decompiler.Decompiler;
+import me.jamiemansfield.symphony.decompiler.WrappedBytecode;
+import org.cadixdev.bombe.asm.jar.ClassProvider;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * An implementation of {@link Decompiler} that only reconstructs the
+ * skeleton of a class - its package, imports, declaration, fields and
+ * method signatures - without reading any code. It is used to show a
+ * class immediately, while it is decompiled.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public class SkeletonDecompiler extends AbstractDecompiler {
+
+    private static final String NAME = "Skeleton";
+    private static final String INDENT = "    ";
+
+    @Override
+    public String decompile(final ClassProvider classProvider, final WrappedBytecode klass, final WrappedBytecode... innerKlasses) {
+        // Read the classes
+        final SkeletonClass root = SkeletonClass.read(klass.getBytecode());
+        final Map<String, SkeletonClass> klasses = new HashMap<>();
+        klasses.put(root.name, root);
+        for (final WrappedBytecode innerKlass : innerKlasses) {
+            checkInterrupted();
+            final SkeletonClass skeleton = SkeletonClass.read(innerKlass.getBytecode());
+            klasses.put(skeleton.name, skeleton);
+        }
+
+        // Nest the named inner classes within their outer classes
+        for (final SkeletonClass skeleton : klasses.values()) {
+            if (skeleton.outerName == null) continue;
+            final SkeletonClass outer = klasses.get(skeleton.outerName);
+            if (outer != null && outer != skeleton) outer.innerClasses.add(skeleton);
+        }
+
+        final Imports imports = new Imports(getPackageName(root.name), root.name);
+        final StringBuilder body = new StringBuilder();
+        write(body, root, imports, "");
+
+        // Package and imports
+        final StringBuilder source = new StringBuilder();
+        if (!getPackageName(root.name).isEmpty()) {
+            source.append("package ").append(getPackageName(root.name).replace('/', '.')).append(";\n\n");
+        }
+        for (final String imported : imports.imports) {
+            source.append("import ").append(imported).append(";\n");
+        }
+        if (!imports.imports.isEmpty()) source.append('\n');
+        return source.append(body).toString();
+    }
+
+    private static void write(final StringBuilder out, final SkeletonClass klass, final Imports imports, final String indent) {
+        final boolean isInterface = (klass.access & Opcodes.ACC_INTERFACE) != 0;
+        final boolean isEnum = (klass.access & Opcodes.ACC_ENUM) != 0;
+
+        // Declaration
+        out.append(indent).append(modifiers(klass.access & ~(Opcodes.ACC_SYNCHRONIZED | Opcodes.ACC_ABSTRACT * (isInterface ? 1 : 0)), true));
+        if ((klass.access & Opcodes.ACC_ANNOTATION) != 0) out.append("@interface ");
+        else if (isInterface) out.append("interface ");
+        else if (isEnum) out.append("enum ");
+        else out.append("class ");
+        out.append(klass.simpleName);
+
+        if (klass.superName != null && !isEnum && !klass.superName.equals("java/lang/Object")) {
+            out.append(" extends ").append(imports.use(klass.superName));
+        }
+        final List<String> interfaces = new ArrayList<>();
+        for (final String interfaceName : klass.interfaces) {
+            if (!interfaceName.equals("java/lang/annotation/Annotation")) interfaces.add(imports.use(interfaceName));
+        }
+        if (!interfaces.isEmpty()) {
+            out.append(isInterface ? " extends " : " implements ").append(String.join(", ", interfaces));
+        }
+        out.append(" {\n");
+        final String memberIndent = indent + INDENT;
+
+        // Enum constants
+        if (isEnum) {
+            final List<String> constants = new ArrayList<>();
+            for (final Member field : klass.fields) {
+                if ((field.access & Opcodes.ACC_ENUM) != 0) constants.add(field.name);
+            }
+            out.append('\n').append(memberIndent).append(String.join(", ", constants)).append(";\n");
+        }
+
+        // Fields
+        boolean first = true;
+        for (final Member field : klass.fields) {
+            if ((field.access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_ENUM)) != 0) continue;
+            if (first) out.append('\n');
+            first = false;
+
+            out.append(memberIndent)
+                    .append(modifiers(isInterface ? 0 : field.access, false))
+                    .append(imports.use(Type.getType(field.descriptor)))
+                    .append(' ').append(field.name);
+            if (field.value != null) {
+                out.append(" = ").append(constant(field.descriptor, field.value));
+            }
+            out.append(";\n");
+        }
+
+        // Methods
+        for (final Member method : klass.methods) {
+            if ((method.access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) != 0) continue;
+            if (method.name.equals("<clinit>")) continue;
+            if (isEnum && (method.name.equals("values") || method.name.equals("valueOf"))) continue;
+
+            final boolean abstractMethod = (method.access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE)) != 0;
+            out.append('\n').append(memberIndent);
+            int access = method.access & ~Opcodes.ACC_VARARGS;
+            if (isInterface) access &= ~(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT);
+            if (isInterface && !abstractMethod && (access & Opcodes.ACC_STATIC) == 0) out.append("default ");
+            out.append(modifiers(access, false));
+
+            final Type type = Type.getMethodType(method.descriptor);
+            if (method.name.equals("<init>")) {
+                out.append(klass.simpleName);
+            }
+            else {
+                out.append(imports.use(type.getReturnType())).append(' ').append(method.name);
+            }
+
+            out.append('(');
+            final Type[] parameters = type.getArgumentTypes();
+            for (int i = 0; i < parameters.length; i++) {
+                if (i > 0) out.append(", ");
+                out.append(imports.use(parameters[i])).append(' ')
+                        .append(i < method.parameters.size() && method.parameters.get(i) != null ? method.parameters.get(i) : "arg" + i);
+            }
+            out.append(')');
+            if (method.exceptions != null && method.exceptions.length > 0) {
+                final List<String> exceptions = new ArrayList<>();
+                for (final String exception : method.exceptions) {
+                    exceptions.add(imports.use(exception));
+                }
+                out.append(" throws ").append(String.join(", ", exceptions));
+            }
+            out.append(abstractMethod ? ";\n" : " { /* ... */ }\n");
+        }
+
+        // Inner classes
+        for (final SkeletonClass innerKlass : klass.innerClasses) {
+            out.append('\n');
+            write(out, innerKlass, imports, memberIndent);
+        }
+
+        out.append(indent).append("}\n");
+    }
+
+    private static String modifiers(final int access, final boolean klass) {
+        final StringBuilder modifiers = new StringBuilder();
+        if ((access & Opcodes.ACC_PUBLIC) != 0) modifiers.append("public ");
+        if ((access & Opcodes.ACC_PRIVATE) != 0) modifiers.append("private ");
+        if ((access & Opcodes.ACC_PROTECTED) != 0) modifiers.append("protected ");
+        if ((access & Opcodes.ACC_ABSTRACT) != 0 && (access & Opcodes.ACC_INTERFACE) == 0) modifiers.append("abstract ");
+        if ((access & Opcodes.ACC_STATIC) != 0) modifiers.append("static ");
+        if ((access & Opcodes.ACC_FINAL) != 0 && (access & Opcodes.ACC_ENUM) == 0) modifiers.append("final ");
+        // note: these flags share their values with others, for classes
+        if (!klass) {
+            if ((access & Opcodes.ACC_SYNCHRONIZED) != 0) modifiers.append("synchronized ");
+            if ((access & Opcodes.ACC_NATIVE) != 0) modifiers.append("native ");
+            if ((access & Opcodes.ACC_TRANSIENT) != 0) modifiers.append("transient ");
+            if ((access & Opcodes.ACC_VOLATILE) != 0) modifiers.append("volatile ");
+        }
+        return modifiers.toString();
+    }
+
+    /**
+     * Writes the value of a constant field as a literal of the field's
+     * type - the class file holds chars and booleans as ints, and the
+     * literal of a long or float needs its suffix.
+     */
+    private static String constant(final String descriptor, final Object value) {
+        switch (descriptor) {
+            case "Z":
+                return ((Integer) value) != 0 ? "true" : "false";
+            case "C":
+                return "'" + escape(String.valueOf((char) (int) (Integer) value), '\'') + "'";
+            case "J":
+                return value + "L";
+            case "F": {
+                final float f = (Float) value;
+                if (Float.isNaN(f)) return "Float.NaN";
+                if (Float.isInfinite(f)) return f > 0 ? "Float.POSITIVE_INFINITY" : "Float.NEGATIVE_INFINITY";
+                return f + "F";
+            }
+            case "D": {
+                final double d = (Double) value;
+                if (Double.isNaN(d)) return "Double.NaN";
+                if (Double.isInfinite(d)) return d > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+                return Double.toString(d);
+            }
+            default:
+                if (value instanceof String) return '"' + escape((String) value, '"') + '"';
+                return String.valueOf(value);
+        }
+    }
+
+    private static String escape(final String string, final char quote) {
+        final StringBuilder escaped = new StringBuilder(string.length());
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            switch (c) {
+                case '\\': escaped.append("\\\\"); break;
+                case '\n': escaped.append("\\n"); break;
+                case '\r': escaped.append("\\r"); break;
+                case '\t': escaped.append("\\t"); break;
+                case '\b': escaped.append("\\b"); break;
+                case '\f': escaped.append("\\f"); break;
+                default:
+                    if (c == quote) escaped.append('\\').append(c);
+                    else if (Character.isISOControl(c)) escaped.append(String.format("\\u%04x", (int) c));
+                    else escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        // note: a skeleton is rebuilt quicker than it can be looked up, and
+        //       would only evict the sources that are expensive to rebuild
+        return false;
+    }
+
+    @Override
+    public OutputType getOutputType() {
+        return OutputType.JAVA;
+    }
+
+    /**
+     * The imports of a class, added as types are used.
+     */
+    private static final class Imports {
+
+        private final String packageName;
+        private final String klass;
+        private final Map<String, String> simpleNames = new HashMap<>();
+        private final TreeSet<String> imports = new TreeSet<>();
+
+        Imports(final String packageName, final String klass) {
+            this.packageName = packageName;
+            this.klass = klass;
+        }
+
+        String use(final Type type) {
+            switch (type.getSort()) {
+                case Type.ARRAY: {
+                    final StringBuilder name = new StringBuilder(this.use(type.getElementType()));
+                    for (int i = 0; i < type.getDimensions(); i++) {
+                        name.append("[]");
+                    }
+                    return name.toString();
+                }
+                case Type.OBJECT:
+                    return this.use(type.getInternalName());
+                default:
+                    return type.getClassName();
+            }
+        }
+
+        String use(final String internalName) {
+            // Nested classes are referred to through their top-level class
+            final int nestIndex = internalName.indexOf('$', internalName.lastIndexOf('/') + 1);
+            final String topLevel = nestIndex == -1 ? internalName : internalName.substring(0, nestIndex);
+            final String nested = nestIndex == -1 ? "" : internalName.substring(nestIndex).replace('$', '.');
+
+            // Classes nested within this class are referred to by their simple names
+            if (topLevel.equals(this.klass) && !nested.isEmpty()) {
+                return nested.substring(nested.lastIndexOf('.') + 1);
+            }
+
+            final String simpleName = getSimpleName(topLevel);
+            final String existing = this.simpleNames.putIfAbsent(simpleName, topLevel);
+            if (existing != null && !existing.equals(topLevel)) {
+                // note: conflicting names are fully qualified
+                return topLevel.replace('/', '.') + nested;
+            }
+
+            final String packageName = getPackageName(topLevel);
+            if (!packageName.equals(this.packageName) && !packageName.equals("java/lang")) {
+                this.imports.add(topLevel.replace('/', '.'));
+            }
+            return simpleName + nested;
+        }
+
+    }
+
+    /**
+     * The skeleton of a single class, as read without its code.
+     */
+    private static final class SkeletonClass {
+
+        static SkeletonClass read(final byte[] bytecode) {
+            final SkeletonClass klass = new SkeletonClass();
+            new ClassReader(bytecode).accept(new ClassVisitor(Opcodes.ASM7) {
+                @Override
+                public void visit(final int version, final int access, final String name, final String signature,
+                        final String superName, final String[] interfaces) {
+                    klass.access = access;
+                    klass.name = name;
+                    klass.simpleName = getSimpleName(name);
+                    klass.superName = superName;
+                    klass.interfaces = interfaces == null ? new String[0] : interfaces;
+                }
+
+                @Override
+                public void visitInnerClass(final String name, final String outerName, final String innerName, final int access) {
+                    // Only this class's own entry is of interest
+                    if (!name.equals(klass.name) || outerName == null || innerName == null) return;
+                    klass.access = access | (klass.access & Opcodes.ACC_SUPER);
+                    klass.outerName = outerName;
+                    klass.simpleName = innerName;
+                }
+
+                @Override
+                public FieldVisitor visitField(final int access, final String name, final String descriptor,
+                        final String signature, final Object value) {
+                    klass.fields.add(new Member(access, name, descriptor, value, null));
+                    return null;
+                }
+
+                @Override
+                public MethodVisitor visitMethod(final int access, final String name, final String descriptor,
+                        final String signature, final String[] exceptions) {
+                    final Member method = new Member(access, name, descriptor, null, exceptions);
+                    klass.methods.add(method);
+                    return new MethodVisitor(Opcodes.ASM7) {
+                        @Override
+                        public void visitParameter(final String name, final int access) {
+                            method.parameters.add(name);
+                        }
+                    };
+                }
+            }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            if (klass.simpleName.indexOf('$') != -1 && klass.outerName == null) {
+                klass.simpleName = klass.simpleName.substring(klass.simpleName.lastIndexOf('$') + 1);
+            }
+            return klass;
+        }
+
+        private int access;
+        private String name;
+        private String simpleName;
+        private String superName;
+        private String[] interfaces;
+        private String outerName;
+        private final List<Member> fields = new ArrayList<>();
+        private final List<Member> methods = new ArrayList<>();
+        private final List<SkeletonClass> innerClasses = new ArrayList<>();
+
+    }
+
+    private static final class Member {
+
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private final Object value;
+        private final String[] exceptions;
+        private final List<String> parameters = new ArrayList<>();
+
+        Member(final int access, final String name, final String descriptor, final Object value, final String[] exceptions) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.value = value;
+            this.exceptions = exceptions;
+        }
+
+    }
+
+}
@@ -33,6 +33,7 @@ public class TexifierDecompiler extends AbstractDecompiler {
         final TraceClassVisitor cv = new TraceClassVisitor(null, new PrintWriter(baos));
         new ClassReader(klass.getBytecode()).accept(cv, 0);
         for (final WrappedBytecode bc : innerKlasses) {
+            checkInterrupted();
             new ClassReader(bc.getBytecode()).accept(cv, 0);
         }
         return baos.toString();
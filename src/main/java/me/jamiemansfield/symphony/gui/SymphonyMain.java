@@ -9,32 +9,40 @@ package me.jamiemansfield.symphony.gui;
 
 import javafx.application.Application;
 import javafx.scene.Scene;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.ListView;
 import javafx.scene.control.SplitPane;
 import javafx.scene.control.TabPane;
+import javafx.scene.control.TextField;
 import javafx.scene.control.TreeItem;
 import javafx.scene.control.TreeView;
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 import me.jamiemansfield.symphony.SharedConstants;
+import me.jamiemansfield.symphony.gui.event.MappingsChangeBus;
+import me.jamiemansfield.symphony.gui.menu.ClassContextMenu;
 import me.jamiemansfield.symphony.gui.menu.MainMenuBar;
+import me.jamiemansfield.symphony.gui.menu.PackageContextMenu;
 import me.jamiemansfield.symphony.gui.tab.code.CodeTab;
 import me.jamiemansfield.symphony.gui.tab.welcome.WelcomeTab;
 import me.jamiemansfield.symphony.gui.theme.Theme;
 import me.jamiemansfield.symphony.gui.theme.ThemeManager;
 import me.jamiemansfield.symphony.gui.tree.ClassElement;
 import me.jamiemansfield.symphony.gui.tree.PackageElement;
-import me.jamiemansfield.symphony.gui.tree.RootElement;
+import me.jamiemansfield.symphony.gui.tree.PackageTreeItem;
 import me.jamiemansfield.symphony.gui.tree.SymphonyTreeCell;
 import me.jamiemansfield.symphony.gui.tree.TreeElement;
+import me.jamiemansfield.symphony.gui.util.ClassListCell;
+import me.jamiemansfield.symphony.jar.ChangedClasses;
 import me.jamiemansfield.symphony.jar.Jar;
+import me.jamiemansfield.symphony.search.ClassNameTrie;
+import me.jamiemansfield.symphony.search.ClassSearchIndex;
 import me.jamiemansfield.symphony.util.StateHelper;
-import org.cadixdev.bombe.jar.JarClassEntry;
 import org.cadixdev.lorenz.model.TopLevelClassMapping;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -53,15 +61,29 @@ public final class SymphonyMain extends Application {
     private static final int DEFAULT_WIDTH = 1280;
     private static final int DEFAULT_HEIGHT = 720;
 
+    // Beyond this many renames (e.g. loading mappings), the classes view is rebuilt
+    private static final int MAXIMUM_TREE_EDITS = 2048;
+    private static final int MAXIMUM_SEARCH_RESULTS = 100;
+
     private Stage stage;
     private TabPane tabs;
     private MainMenuBar mainMenu;
 
     // Active jar
     private Jar jar;
+    private MappingsChangeBus mappingsChanges;
 
     // Classes View
-    private TreeItem<TreeElement> treeRoot;
+    private TreeView<TreeElement> treeView;
+    private PackageTreeItem treeRoot;
+    private final Map<String, PackageTreeItem> packageItems = new HashMap<>();
+    private final Map<String, PackageTreeItem> classPackages = new HashMap<>();
+    private ClassContextMenu classContextMenu;
+    private TextField searchField;
+    private ListView<String> searchResults;
+    private ClassSearchIndex classSearch;
+    private ClassNameTrie classNames;
+    private PackageContextMenu packageContextMenu;
 
     @Override
     public void start(final Stage primaryStage) {
@@ -81,6 +103,11 @@ public final class SymphonyMain extends Application {
         this.stage.setWidth(DEFAULT_WIDTH);
         this.stage.setHeight(DEFAULT_HEIGHT);
 
+        // Mapping changes
+        this.mappingsChanges = new MappingsChangeBus(this::getJar);
+        this.mappingsChanges.register(this::onClassesRenamed);
+        this.mappingsChanges.register(this::onClassesChanged);
+
         // Root GUI container
         final BorderPane root = new BorderPane();
 
@@ -95,27 +122,58 @@ public final class SymphonyMain extends Application {
         final BorderPane classesView = new BorderPane();
         classesView.setMaxWidth(400);
         classesView.setMinWidth(250);
-        // TODO: Search
+        // Search
         {
-            final TreeView<TreeElement> treeView = new TreeView<>();
-            treeView.setShowRoot(false);
-            treeView.setCellFactory(view -> new SymphonyTreeCell());
-            treeView.setOnMouseClicked(event -> {
+            this.searchField = new TextField();
+            this.searchField.setPromptText("Search classes");
+            this.searchField.textProperty().addListener((observable, oldValue, newValue) -> {
+                this.search();
+                classesView.setCenter(newValue.trim().isEmpty() ? this.treeView : this.searchResults);
+            });
+            this.searchField.setOnKeyPressed(event -> {
+                if (event.getCode() == KeyCode.ENTER && !this.searchResults.getItems().isEmpty()) {
+                    this.displayCodeTab(this.searchResults.getItems().get(0));
+                }
+                else if (event.getCode() == KeyCode.ESCAPE) {
+                    this.searchField.clear();
+                }
+                else if (event.getCode() == KeyCode.DOWN && !this.searchResults.getItems().isEmpty()) {
+                    this.searchResults.requestFocus();
+                    this.searchResults.getSelectionModel().selectFirst();
+                }
+            });
+
+            this.searchResults = new ListView<>();
+            this.searchResults.setCellFactory(view -> new ClassListCell(this));
+            this.searchResults.setOnMouseClicked(event -> {
+                final String klass = this.searchResults.getSelectionModel().getSelectedItem();
+                if (event.getClickCount() == 2 && klass != null) this.displayCodeTab(klass);
+            });
+            this.searchResults.setOnKeyPressed(event -> {
+                final String klass = this.searchResults.getSelectionModel().getSelectedItem();
+                if (event.getCode() == KeyCode.ENTER && klass != null) this.displayCodeTab(klass);
+            });
+
+            classesView.setTop(this.searchField);
+        }
+        {
+            this.treeView = new TreeView<>();
+            this.treeView.setShowRoot(false);
+            this.treeView.setCellFactory(view -> new SymphonyTreeCell());
+            this.treeView.setOnMouseClicked(event -> {
                 if (event.getClickCount() == 2) {
-                    final TreeItem<TreeElement> item = treeView.getSelectionModel().getSelectedItems().get(0);
+                    final TreeItem<TreeElement> item = this.treeView.getSelectionModel().getSelectedItems().get(0);
                     if (item == null) return;
                     item.getValue().activate();
                 }
             });
-            this.treeRoot = new TreeItem<>(new RootElement());
+            this.classContextMenu = new ClassContextMenu(this);
+            this.packageContextMenu = new PackageContextMenu(this);
+            this.treeRoot = new PackageTreeItem(this, "");
             this.treeRoot.setExpanded(true);
-            treeView.setRoot(this.treeRoot);
+            this.treeView.setRoot(this.treeRoot);
 
-            final ScrollPane scrollPane = new ScrollPane(treeView);
-            scrollPane.setFitToWidth(true);
-            scrollPane.setFitToHeight(true);
-
-            classesView.setCenter(scrollPane);
+            classesView.setCenter(this.treeView);
         }
         main.getItems().add(classesView);
 
@@ -141,6 +199,16 @@ public final class SymphonyMain extends Application {
         return this.jar;
     }
 
+    /**
+     * Gets the bus through which changes to the mappings of the open jar
+     * are dispatched.
+     *
+     * @return The mappings change bus
+     */
+    public MappingsChangeBus getMappingsChanges() {
+        return this.mappingsChanges;
+    }
+
     public void setJar(final Jar jar) {
         // Close all current tabs
         if (this.jar != null) {
@@ -163,6 +231,11 @@ public final class SymphonyMain extends Application {
             this.mainMenu.navigate.klass.setDisable(!opening);
         }
 
+        // Dispatch changes to the jar's mappings
+        if (opening) {
+            jar.addChangeListener(this.mappingsChanges::post);
+        }
+
         // Correct the title, if needed
         if (opening) {
             this.stage.setTitle(DEFAULT_TITLE + " - " + jar.getName());
@@ -171,8 +244,11 @@ public final class SymphonyMain extends Application {
             this.stage.setTitle(DEFAULT_TITLE);
         }
 
-        // Refresh classes view
-        this.refreshClasses();
+        // Reset classes view, classes being added as they're discovered
+        this.resetClasses();
+        this.classSearch = null;
+        this.classNames = null;
+        this.search();
     }
 
     public TabPane getTabs() {
@@ -183,52 +259,166 @@ public final class SymphonyMain extends Application {
         return this.stage;
     }
 
+    public ClassContextMenu getClassContextMenu() {
+        return this.classContextMenu;
+    }
+
+    public PackageContextMenu getPackageContextMenu() {
+        return this.packageContextMenu;
+    }
+
     public void refreshClasses() {
         final List<String> expanded = this.getExpandedPackages(new ArrayList<>(), this.treeRoot);
-        this.treeRoot.getChildren().clear();
+        this.resetClasses();
         if (this.jar == null) return;
 
-        final Map<String, TreeItem<TreeElement>> packageCache = new HashMap<>();
-
-        this.jar.entries()
-                .filter(JarClassEntry.class::isInstance).map(JarClassEntry.class::cast)
-                .filter(entry -> !entry.getSimpleName().contains("$"))
-                .forEach(entry -> {
-                    final String klassName = entry.getName().substring(0, entry.getName().length() - ".class".length());
-                    final TopLevelClassMapping klass = this.jar.getMappings().getOrCreateTopLevelClassMapping(klassName);
-
-                    this.getPackageItem(packageCache, klass.getDeobfuscatedPackage()).getChildren()
-                            .add(new TreeItem<>(new ClassElement(this, klass)));
-                });
-
-        // sort
-        packageCache.values().forEach(item -> {
-            item.getChildren().setAll(item.getChildren().sorted(Comparator.comparing(TreeItem::getValue)));
-        });
-        this.treeRoot.getChildren().setAll(this.treeRoot.getChildren().sorted(Comparator.comparing(TreeItem::getValue)));
+        this.addClasses(this.jar, PackageTreeItem.sortClasses(
+                this.jar.topLevelClasses().collect(Collectors.toList()),
+                this.jar::getDeobfuscatedName
+        ));
 
         // reopen packages
         expanded.forEach(pkg -> {
-            final TreeItem<TreeElement> packageItem = packageCache.get(pkg);
+            final TreeItem<TreeElement> packageItem = this.packageItems.get(pkg);
             if (packageItem == null) return;
             packageItem.setExpanded(true);
         });
     }
 
-    private TreeItem<TreeElement> getPackageItem(final Map<String, TreeItem<TreeElement>> cache, final String packageName) {
-        if (packageName.isEmpty()) return this.treeRoot;
-        if (cache.containsKey(packageName)) return cache.get(packageName);
+    private void resetClasses() {
+        this.treeRoot = new PackageTreeItem(this, "");
+        this.treeRoot.setExpanded(true);
+        this.treeView.setRoot(this.treeRoot);
+        this.packageItems.clear();
+        this.classPackages.clear();
+    }
 
-        final TreeItem<TreeElement> parent;
-        if (packageName.lastIndexOf('/') != -1) {
-            parent = this.getPackageItem(cache, packageName.substring(0, packageName.lastIndexOf('/')));
+    /**
+     * Adds the given top-level classes to the classes view, should the
+     * given jar still be open.
+     * <p>
+     * The classes should be {@link PackageTreeItem#sortClasses sorted}
+     * beforehand, so they're appended to their packages.
+     *
+     * @param jar The jar the classes belong to
+     * @param klasses The obfuscated names of the classes
+     */
+    public void addClasses(final Jar jar, final Collection<String> klasses) {
+        if (this.jar != jar) return;
+
+        // note: the items of classes are only created once their package is expanded
+        for (final String klass : klasses) {
+            final PackageTreeItem packageItem = this.getPackageItem(this.getDeobfuscatedPackage(klass));
+            packageItem.addClass(klass);
+            this.classPackages.put(klass, packageItem);
+        }
+    }
+
+    /**
+     * Moves the given classes within the classes view, to reflect their
+     * new de-obfuscated names - keeping the current selection, and which
+     * packages are expanded.
+     *
+     * @param klasses The obfuscated names of the renamed classes
+     */
+    private void moveClasses(final Collection<String> klasses) {
+        final TreeItem<TreeElement> selected = this.treeView.getSelectionModel().getSelectedItem();
+
+        for (final String klass : klasses) {
+            final PackageTreeItem from = this.classPackages.get(klass);
+            // note: inner classes aren't shown
+            if (from == null) continue;
+
+            // Re-insert the class, even if its package is unchanged - as its position may have
+            final PackageTreeItem to = this.getPackageItem(this.getDeobfuscatedPackage(klass));
+            final TreeItem<TreeElement> item = from.removeClass(klass);
+            to.addClass(klass, item);
+            this.classPackages.put(klass, to);
+            if (from != to) this.removeIfEmpty(from);
+        }
+
+        // Restore the selection, revealing it should it have moved
+        if (selected == null) return;
+        if (selected.getValue() instanceof ClassElement && selected.getParent() == null) {
+            final String klass = ((ClassElement) selected.getValue()).getKlass().getFullObfuscatedName();
+            final PackageTreeItem packageItem = this.classPackages.get(klass);
+            if (packageItem == null) return;
+            for (TreeItem<TreeElement> item = packageItem; item != null; item = item.getParent()) {
+                item.setExpanded(true);
+            }
+            this.treeView.getSelectionModel().select(packageItem.getClassItem(klass));
         }
         else {
-            parent = this.treeRoot;
+            this.treeView.getSelectionModel().select(selected);
+        }
+    }
+
+    /**
+     * Moves the given package, and its sub-packages, within the classes
+     * view - keeping their expanded state.
+     * <p>
+     * Should the package be merged into an existing package, this does
+     * nothing - and its classes are moved individually once renamed.
+     *
+     * @param from The old de-obfuscated name of the package
+     * @param to The new de-obfuscated name of the package
+     */
+    public void movePackage(final String from, final String to) {
+        final PackageTreeItem packageItem = this.packageItems.get(from);
+        if (packageItem == null || to.isEmpty() || to.equals(from) || to.startsWith(from + '/')) return;
+
+        final List<PackageTreeItem> moved = this.packageItems.values().stream()
+                .filter(item -> item.getName().equals(from) || item.getName().startsWith(from + '/'))
+                .collect(Collectors.toList());
+        for (final PackageTreeItem item : moved) {
+            if (this.packageItems.containsKey(to + item.getName().substring(from.length()))) return;
+        }
+
+        // Detach the package from its parent
+        final PackageTreeItem parent = this.getParentItem(from);
+        parent.removePackage(packageItem);
+
+        // Rename the package and its sub-packages
+        for (final PackageTreeItem item : moved) {
+            this.packageItems.remove(item.getName());
+        }
+        for (final PackageTreeItem item : moved) {
+            item.setName(to + item.getName().substring(from.length()));
+            this.packageItems.put(item.getName(), item);
         }
-        final TreeItem<TreeElement> packageItem = new TreeItem<>(new PackageElement(this, packageName));
-        parent.getChildren().add(packageItem);
-        cache.put(packageName, packageItem);
+
+        // Attach the package to its new parent
+        this.getParentItem(to).addPackage(packageItem);
+        this.removeIfEmpty(parent);
+    }
+
+    private void removeIfEmpty(final PackageTreeItem packageItem) {
+        if (packageItem == this.treeRoot || !packageItem.isEmpty()) return;
+        final PackageTreeItem parent = this.getParentItem(packageItem.getName());
+        this.packageItems.remove(packageItem.getName());
+        parent.removePackage(packageItem);
+        this.removeIfEmpty(parent);
+    }
+
+    private String getDeobfuscatedPackage(final String klass) {
+        final String deobfName = this.jar.getDeobfuscatedName(klass);
+        final int packageIndex = deobfName.lastIndexOf('/');
+        return packageIndex == -1 ? "" : deobfName.substring(0, packageIndex);
+    }
+
+    private PackageTreeItem getParentItem(final String packageName) {
+        final int index = packageName.lastIndexOf('/');
+        return index == -1 ? this.treeRoot : this.getPackageItem(packageName.substring(0, index));
+    }
+
+    private PackageTreeItem getPackageItem(final String packageName) {
+        if (packageName.isEmpty()) return this.treeRoot;
+        final PackageTreeItem cached = this.packageItems.get(packageName);
+        if (cached != null) return cached;
+
+        final PackageTreeItem packageItem = new PackageTreeItem(this, packageName);
+        this.getParentItem(packageName).addPackage(packageItem);
+        this.packageItems.put(packageName, packageItem);
         return packageItem;
     }
 
@@ -242,12 +432,83 @@ public final class SymphonyMain extends Application {
         return packages;
     }
 
-    public void update() {
-        this.refreshClasses();
+    private void onClassesRenamed(final Jar jar, final ChangedClasses changes) {
+        if (changes.getRenamedClasses().isEmpty()) return;
+
+        // Re-index the renamed classes, and refresh the search results
+        if (this.classSearch != null) {
+            this.classSearch.update(changes.getRenamedClasses(), jar::getDeobfuscatedName);
+            this.classNames.update(changes.getRenamedClasses(), jar::getDeobfuscatedName);
+            this.search();
+        }
+
+        // Move the renamed classes within the classes view
+        if (changes.getRenamedClasses().size() > MAXIMUM_TREE_EDITS) {
+            this.refreshClasses();
+        }
+        else {
+            this.moveClasses(changes.getRenamedClasses());
+        }
+    }
+
+    private void onClassesChanged(final Jar jar, final ChangedClasses changes) {
+        if (changes.isEmpty()) return;
+
+        // Only update the tabs of classes affected by the changes
         this.tabs.getTabs().stream().filter(CodeTab.class::isInstance).map(CodeTab.class::cast)
+                .filter(tab -> jar.hasChanged(changes, tab.getKlass().getFullObfuscatedName()))
                 .forEach(CodeTab::update);
     }
 
+    /**
+     * Sets the indices of the names of the given jar's classes, should
+     * the jar still be open.
+     * <p>
+     * The indices may have been built before the jar's classes were
+     * renamed, so are brought up to date.
+     *
+     * @param jar The jar
+     * @param classSearch The search index
+     * @param classNames The tree of class names, for completion
+     */
+    public void setClassIndices(final Jar jar, final ClassSearchIndex classSearch, final ClassNameTrie classNames) {
+        if (this.jar != jar) return;
+        final List<String> klasses = jar.topLevelClasses().collect(Collectors.toList());
+        classSearch.update(klasses, jar::getDeobfuscatedName);
+        classNames.update(klasses, jar::getDeobfuscatedName);
+        this.classSearch = classSearch;
+        this.classNames = classNames;
+        this.search();
+    }
+
+    /**
+     * Gets the tree of the names of the open jar's classes, for
+     * completing class names.
+     *
+     * @return The class names, or {@code null} should they not yet be
+     *         indexed
+     */
+    public ClassNameTrie getClassNames() {
+        return this.classNames;
+    }
+
+    private void search() {
+        if (this.classSearch == null) {
+            this.searchResults.getItems().clear();
+            return;
+        }
+        this.searchResults.getItems().setAll(this.classSearch.search(this.searchField.getText(), MAXIMUM_SEARCH_RESULTS));
+    }
+
+    public void refreshCodeTabs() {
+        this.tabs.getTabs().stream().filter(CodeTab.class::isInstance).map(CodeTab.class::cast)
+                .forEach(CodeTab::update);
+    }
+
+    private void displayCodeTab(final String klass) {
+        this.displayCodeTab(this.jar.getMappings().getOrCreateTopLevelClassMapping(klass));
+    }
+
     public void displayCodeTab(final TopLevelClassMapping klass) {
         this.tabs.getSelectionModel().select(this.tabs.getTabs().stream()
                 .filter(CodeTab.class::isInstance)
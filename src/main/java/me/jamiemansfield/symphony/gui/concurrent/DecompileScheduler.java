@@ -0,0 +1,239 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.gui.concurrent;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import me.jamiemansfield.symphony.util.PropertiesKey;
+import me.jamiemansfield.symphony.util.StateHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of threads shared by all decompiles (and exports), that
+ * runs the waiting work with the highest {@link Priority priority} first -
+ * so the class being looked at is decompiled before those in the
+ * background.
+ * <p>
+ * The number of threads is given by the {@code decompile_parallelism}
+ * property. Decompiles with a time limit run each decompiler on a second
+ * pool of as many threads, so they may be abandoned should they not stop
+ * once interrupted - while still being bounded. Its waiting work is run
+ * by priority too.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public final class DecompileScheduler {
+
+    private static final PropertiesKey<Integer> PARALLELISM = PropertiesKey.integer(
+            "decompile_parallelism"
+    );
+
+    public static final DecompileScheduler INSTANCE = new DecompileScheduler(StateHelper.get(PARALLELISM)
+            .filter(parallelism -> parallelism > 0)
+            // note: decompilers are memory hungry, so only half of the processors are used by default
+            .orElse(Math.max(1, Runtime.getRuntime().availableProcessors() / 2)));
+
+    private final int parallelism;
+    private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+    private final ThreadPoolExecutor executor;
+    private final PriorityBlockingQueue<Runnable> attemptQueue = new PriorityBlockingQueue<>();
+    private final ThreadPoolExecutor attemptExecutor;
+    private final AtomicLong sequence = new AtomicLong();
+
+    // The queue depth, as shown in the task manager
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicBoolean updatePending = new AtomicBoolean();
+    private final ReadOnlyIntegerWrapper queued = new ReadOnlyIntegerWrapper(this, "queued");
+    private final ReadOnlyIntegerWrapper active = new ReadOnlyIntegerWrapper(this, "active");
+
+    private DecompileScheduler(final int parallelism) {
+        this.parallelism = parallelism;
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS, this.queue, runnable -> {
+            final Thread thread = new Thread(runnable, "decompile-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final AtomicInteger attemptCount = new AtomicInteger();
+        this.attemptExecutor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS, this.attemptQueue, runnable -> {
+            final Thread thread = new Thread(runnable, "decompile-attempt-" + attemptCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the number of threads decompiling at once.
+     *
+     * @return The parallelism
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * Creates an executor that schedules its work at the priority given,
+     * for use by a {@link javafx.concurrent.Service}.
+     * <p>
+     * The priority is established as the work is scheduled, and whenever
+     * the queue is {@link #reprioritise() reprioritised}.
+     *
+     * @param priority The priority of the work
+     * @return The executor
+     */
+    public Executor executor(final Supplier<Priority> priority) {
+        return runnable -> {
+            this.executor.execute(new ScheduledTask(this.track(runnable), priority, this.sequence.getAndIncrement()));
+            this.update();
+        };
+    }
+
+    /**
+     * Creates an executor that individual decompilers are run with, by
+     * decompiles with a time limit - scheduling its work at the priority
+     * given, as with {@link #executor(Supplier)}.
+     * <p>
+     * Decompilers that have been abandoned, having not stopped once
+     * interrupted, continue to occupy its threads - so other decompilers
+     * wait for them, rather than more threads being created.
+     *
+     * @param priority The priority of the work
+     * @return The executor
+     * @see me.jamiemansfield.symphony.jar.Jar.Snapshot#decompile(java.util.List, String, long, TimeUnit, Executor)
+     */
+    public Executor attemptExecutor(final Supplier<Priority> priority) {
+        // note: the decompile waiting on the attempt is already counted as running
+        return runnable -> this.attemptExecutor.execute(new ScheduledTask(runnable, priority, this.sequence.getAndIncrement()));
+    }
+
+    /**
+     * Re-orders the waiting work by its current priority - as should be
+     * done when the priority of any of it changes.
+     */
+    public void reprioritise() {
+        reprioritise(this.queue);
+        reprioritise(this.attemptQueue);
+    }
+
+    private static void reprioritise(final PriorityBlockingQueue<Runnable> queue) {
+        final List<Runnable> waiting = new ArrayList<>();
+        queue.drainTo(waiting);
+        for (final Runnable runnable : waiting) {
+            ((ScheduledTask) runnable).prioritise();
+        }
+        queue.addAll(waiting);
+    }
+
+    /**
+     * Gets the number of tasks waiting to be run.
+     *
+     * @return The queue depth
+     */
+    public ReadOnlyIntegerProperty queuedProperty() {
+        return this.queued.getReadOnlyProperty();
+    }
+
+    /**
+     * Gets the number of tasks being run.
+     *
+     * @return The number of running tasks
+     */
+    public ReadOnlyIntegerProperty activeProperty() {
+        return this.active.getReadOnlyProperty();
+    }
+
+    private Runnable track(final Runnable runnable) {
+        return () -> {
+            this.running.incrementAndGet();
+            this.update();
+            try {
+                runnable.run();
+            }
+            finally {
+                this.running.decrementAndGet();
+                this.update();
+            }
+        };
+    }
+
+    private void update() {
+        // note: coalesced, as work is scheduled and completed in bursts
+        if (!this.updatePending.compareAndSet(false, true)) return;
+        Platform.runLater(() -> {
+            this.updatePending.set(false);
+            this.queued.set(this.queue.size());
+            this.active.set(this.running.get());
+        });
+    }
+
+    /**
+     * The priorities work may be scheduled with, highest first.
+     */
+    public enum Priority {
+
+        /**
+         * The class in the selected tab.
+         */
+        SELECTED,
+        /**
+         * Classes in the other tabs.
+         */
+        BACKGROUND,
+        /**
+         * The entries of an export.
+         */
+        EXPORT,
+        ;
+
+    }
+
+    private static final class ScheduledTask implements Runnable, Comparable<ScheduledTask> {
+
+        private final Runnable runnable;
+        private final Supplier<Priority> priority;
+        private final long sequence;
+        private Priority current;
+
+        ScheduledTask(final Runnable runnable, final Supplier<Priority> priority, final long sequence) {
+            this.runnable = runnable;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.current = priority.get();
+        }
+
+        void prioritise() {
+            this.current = this.priority.get();
+        }
+
+        @Override
+        public void run() {
+            this.runnable.run();
+        }
+
+        @Override
+        public int compareTo(final ScheduledTask other) {
+            final int priority = this.current.compareTo(other.current);
+            // note: work of the same priority is run in the order it was scheduled
+            return priority != 0 ? priority : Long.compare(this.sequence, other.sequence);
+        }
+
+    }
+
+}
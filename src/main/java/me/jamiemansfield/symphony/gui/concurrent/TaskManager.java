@@ -7,8 +7,12 @@
 
 package me.jamiemansfield.symphony.gui.concurrent;
 
+import javafx.beans.binding.Bindings;
 import javafx.concurrent.Task;
+import javafx.geometry.Insets;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 import me.jamiemansfield.symphony.gui.theme.ThemeManager;
 import org.controlsfx.control.TaskProgressView;
@@ -25,9 +29,15 @@ public final class TaskManager {
     public static final TaskManager INSTANCE = new TaskManager();
 
     private final TaskProgressView<TrackedTask<?>> progressView = new TaskProgressView<>();
-    private final Scene scene = new Scene(this.progressView);
+    private final Label queueDepth = new Label();
+    private final Scene scene = new Scene(new BorderPane(this.progressView, this.queueDepth, null, null, null));
 
     private TaskManager() {
+        // Show the depth of the decompile queue
+        final DecompileScheduler scheduler = DecompileScheduler.INSTANCE;
+        this.queueDepth.textProperty().bind(Bindings.format("Decompiling: %d running, %d queued (of %d threads)",
+                scheduler.activeProperty(), scheduler.queuedProperty(), scheduler.getParallelism()));
+        this.queueDepth.setPadding(new Insets(4));
     }
 
     /**
@@ -0,0 +1,89 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.gui.event;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import me.jamiemansfield.symphony.jar.ChangedClasses;
+import me.jamiemansfield.symphony.jar.Jar;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Dispatches changes to the mappings of the open jar to its listeners.
+ * <p>
+ * Changes aren't dispatched as they're made, rather they're merged and
+ * dispatched once before the next frame is rendered - so a burst of
+ * changes (renaming a package, or loading mappings) causes a single
+ * update of the views.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public class MappingsChangeBus {
+
+    private final Supplier<Jar> jar;
+    private final List<MappingsChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(final long now) {
+            this.stop();
+            MappingsChangeBus.this.dispatch();
+        }
+    };
+
+    /**
+     * Creates a bus for the jar given by the supplier.
+     *
+     * @param jar The supplier of the open jar
+     */
+    public MappingsChangeBus(final Supplier<Jar> jar) {
+        this.jar = jar;
+    }
+
+    /**
+     * Registers the given listener.
+     *
+     * @param listener The listener
+     */
+    public void register(final MappingsChangeListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Notes that the mappings have changed, scheduling the changes to be
+     * dispatched before the next frame - should they not already be.
+     */
+    public void post() {
+        if (!this.scheduled.compareAndSet(false, true)) return;
+        if (Platform.isFxApplicationThread()) {
+            this.timer.start();
+        }
+        else {
+            Platform.runLater(this.timer::start);
+        }
+    }
+
+    private void dispatch() {
+        this.scheduled.set(false);
+
+        final Jar jar = this.jar.get();
+        if (jar == null) return;
+        final ChangedClasses changes = jar.pollChangedClasses();
+        if (changes.isEmpty() && changes.getRenamedClasses().isEmpty()) return;
+
+        for (final MappingsChangeListener listener : this.listeners) {
+            listener.onMappingsChanged(jar, changes);
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.gui.event;
+
+import me.jamiemansfield.symphony.jar.ChangedClasses;
+import me.jamiemansfield.symphony.jar.Jar;
+
+/**
+ * A listener for changes to the mappings of the open jar.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+@FunctionalInterface
+public interface MappingsChangeListener {
+
+    /**
+     * Invoked, on the JavaFX application thread, with the classes affected
+     * by the changes made to the mappings since the last update.
+     *
+     * @param jar The jar
+     * @param changes The changed classes
+     */
+    void onMappingsChanged(final Jar jar, final ChangedClasses changes);
+
+}
@@ -15,16 +15,21 @@ import me.jamiemansfield.symphony.gui.SymphonyMain;
 import org.cadixdev.lorenz.model.TopLevelClassMapping;
 
 /**
- * The class context menu.
+ * The class context menu, shared between all classes - its actions
+ * applying to the class it was last {@link #setKlass(TopLevelClassMapping) set}
+ * to.
  *
  * @author Jamie Mansfield
  * @since 0.1.0
  */
 public class ClassContextMenu extends ContextMenu {
 
-    public ClassContextMenu(final SymphonyMain symphony, final TopLevelClassMapping klass) {
+    private TopLevelClassMapping klass;
+
+    public ClassContextMenu(final SymphonyMain symphony) {
         final MenuItem remap = new MenuItem("Set de-obfuscated name");
         remap.addEventHandler(ActionEvent.ACTION, event -> {
+            final TopLevelClassMapping klass = this.klass;
             final TextInputDialog dialog = new TextInputDialog();
             dialog.setTitle("Set de-obfuscated name");
             dialog.setHeaderText("Set de-obfuscated name");
@@ -33,9 +38,6 @@ public class ClassContextMenu extends ContextMenu {
             dialog.showAndWait().ifPresent(deobfName -> {
                 // Set the deobf name
                 klass.setDeobfuscatedName(deobfName);
-
-                // Update the view
-                symphony.update();
             });
         });
         this.getItems().add(remap);
@@ -43,12 +45,18 @@ public class ClassContextMenu extends ContextMenu {
         final MenuItem reset = new MenuItem("Reset de-obfuscated name");
         reset.addEventHandler(ActionEvent.ACTION, event -> {
             // Set the deobf name to the obf name (resetting it)
-            klass.setDeobfuscatedName(klass.getObfuscatedName());
-
-            // Update the view
-            symphony.update();
+            this.klass.setDeobfuscatedName(this.klass.getObfuscatedName());
         });
         this.getItems().add(reset);
     }
 
+    /**
+     * Sets the class that the menu's actions apply to.
+     *
+     * @param klass The class
+     */
+    public void setKlass(final TopLevelClassMapping klass) {
+        this.klass = klass;
+    }
+
 }
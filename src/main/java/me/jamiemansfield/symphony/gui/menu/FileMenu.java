@@ -20,16 +20,22 @@ import javafx.stage.FileChooser;
 import me.jamiemansfield.symphony.decompiler.Decompiler;
 import me.jamiemansfield.symphony.decompiler.DecompilerManager;
 import me.jamiemansfield.symphony.gui.SymphonyMain;
+import me.jamiemansfield.symphony.gui.concurrent.DecompileScheduler;
 import me.jamiemansfield.symphony.gui.concurrent.TaskManager;
+import me.jamiemansfield.symphony.gui.tree.PackageTreeItem;
 import me.jamiemansfield.symphony.gui.util.MappingsHelper;
 import me.jamiemansfield.symphony.jar.Jar;
+import me.jamiemansfield.symphony.search.ClassNameTrie;
+import me.jamiemansfield.symphony.search.ClassSearchIndex;
 import me.jamiemansfield.symphony.util.LocaleHelper;
 import me.jamiemansfield.symphony.util.PropertiesKey;
 import me.jamiemansfield.symphony.util.StateHelper;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.jar.JarFile;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 /**
  * The Symphony 'File' menu.
@@ -130,7 +136,7 @@ public class FileMenu extends Menu {
                         DECOMPILER = decompiler;
 
                         // Update the views
-                        symphony.update();
+                        symphony.refreshCodeTabs();
                     });
                     decompilerGroup.getToggles().add(menuItem);
                     decompilerMenu.getItems().add(menuItem);
@@ -168,13 +174,8 @@ public class FileMenu extends Menu {
         final File jarPath = this.openJarFileChooser.showOpenDialog(this.symphony.getStage());
         if (jarPath == null) return;
 
-        try {
-            this.symphony.setJar(new Jar(new JarFile(jarPath)));
-        }
-        catch (final IOException ex) {
-            ex.printStackTrace();
-            return;
-        }
+        final OpenJarService openJarService = new OpenJarService(jarPath);
+        openJarService.start();
 
         // Update state
         StateHelper.set(LAST_OPEN_DIRECTORY, jarPath.getParentFile());
@@ -185,10 +186,8 @@ public class FileMenu extends Menu {
     }
 
     private void loadMappings(final ActionEvent event) {
-        if (MappingsHelper.loadMappings(this.symphony.getStage(), this.symphony.getJar().getMappings())) {
-            // Update views
-            this.symphony.update();
-        }
+        // note: the views are updated as the mappings change
+        MappingsHelper.loadMappings(this.symphony.getStage(), this.symphony.getJar().getMappings());
     }
 
     private void saveMappingsAs(final ActionEvent event) {
@@ -210,20 +209,78 @@ public class FileMenu extends Menu {
         final File jarPath = this.exportJarFileChooser.showSaveDialog(this.symphony.getStage());
         if (jarPath == null) return;
 
-        final RemapperService remapperService = new RemapperService(this.symphony.getJar(), jarPath);
+        final RemapperService remapperService = new RemapperService(this.symphony.getJar().snapshot(), jarPath);
         remapperService.start();
 
         // Update state
         StateHelper.set(LAST_EXPORT_DIRECTORY, jarPath.getParentFile());
     }
 
+    private class OpenJarService extends Service<Jar> {
+
+        private static final int BATCH_SIZE = 1024;
+
+        private final File jarPath;
+
+        OpenJarService(final File jarPath) {
+            this.jarPath = jarPath;
+        }
+
+        @Override
+        protected Task<Jar> createTask() {
+            return TaskManager.INSTANCE.new TrackedTask<Jar>() {
+                {
+                    this.updateTitle("open: " + OpenJarService.this.jarPath.getName());
+                }
+
+                @Override
+                protected Jar call() throws IOException {
+                    this.updateMessage("Reading entries...");
+                    final Jar jar = new Jar(OpenJarService.this.jarPath.toPath());
+                    Platform.runLater(() -> FileMenu.this.symphony.setJar(jar));
+
+                    // Publish the classes to the classes view in batches, sorted here
+                    // note: the jar has no mappings yet, so the classes are sorted by their obfuscated names
+                    final List<String> klasses = PackageTreeItem.sortClasses(
+                            jar.topLevelClasses().collect(Collectors.toList()),
+                            UnaryOperator.identity()
+                    );
+                    for (int i = 0; i < klasses.size(); i += BATCH_SIZE) {
+                        final List<String> batch = klasses.subList(i, Math.min(i + BATCH_SIZE, klasses.size()));
+                        Platform.runLater(() -> FileMenu.this.symphony.addClasses(jar, batch));
+                        this.updateProgress(i + batch.size(), klasses.size());
+                        this.updateMessage(String.format("%d / %d classes", i + batch.size(), klasses.size()));
+                    }
+
+                    // Index the names of the classes, for searching
+                    this.updateProgress(-1, 1);
+                    this.updateMessage("Indexing class names...");
+                    final ClassSearchIndex classSearch = ClassSearchIndex.of(klasses, UnaryOperator.identity());
+                    final ClassNameTrie classNames = ClassNameTrie.of(klasses, UnaryOperator.identity());
+                    Platform.runLater(() -> FileMenu.this.symphony.setClassIndices(jar, classSearch, classNames));
+
+                    // Wait for the jar to be indexed
+                    this.updateMessage("Indexing classes...");
+                    jar.awaitIndex();
+                    return jar;
+                }
+
+                @Override
+                protected void failed() {
+                    this.getException().printStackTrace();
+                }
+            };
+        }
+
+    }
+
     private class RemapperService extends Service<Void> {
 
-        private final Jar jar;
+        private final Jar.Snapshot snapshot;
         private final File to;
 
-        RemapperService(final Jar jar, final File to) {
-            this.jar = jar;
+        RemapperService(final Jar.Snapshot snapshot, final File to) {
+            this.snapshot = snapshot;
             this.to = to;
         }
 
@@ -236,9 +293,20 @@ public class FileMenu extends Menu {
 
                 @Override
                 protected Void call() {
-                    RemapperService.this.jar.exportRemapped(RemapperService.this.to);
+                    // note: the entries are remapped by the decompile scheduler, so decompiles needn't wait for the export
+                    final DecompileScheduler scheduler = DecompileScheduler.INSTANCE;
+                    RemapperService.this.snapshot.exportRemapped(RemapperService.this.to, (written, total, elapsed) -> {
+                        this.updateProgress(written, total);
+                        this.updateMessage(String.format("%d / %d entries (%.0f entries/s)",
+                                written, total, written / (elapsed / 1_000_000_000.0)));
+                    }, scheduler.executor(() -> DecompileScheduler.Priority.EXPORT), scheduler.getParallelism());
                     return null;
                 }
+
+                @Override
+                protected void failed() {
+                    this.getException().printStackTrace();
+                }
             };
         }
 
@@ -10,7 +10,6 @@ package me.jamiemansfield.symphony.gui.menu;
 import javafx.event.ActionEvent;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuItem;
-import javafx.scene.control.TextInputDialog;
 import me.jamiemansfield.symphony.gui.SymphonyMain;
 import me.jamiemansfield.symphony.util.LocaleHelper;
 
@@ -23,6 +22,7 @@ import me.jamiemansfield.symphony.util.LocaleHelper;
 public class NavigateMenu extends Menu {
 
     private final SymphonyMain symphony;
+    private QuickOpenPopup quickOpen;
 
     public final MenuItem klass;
 
@@ -44,15 +44,10 @@ public class NavigateMenu extends Menu {
     }
 
     private void navigateToClass(final ActionEvent event) {
-        final TextInputDialog dialog = new TextInputDialog();
-        dialog.setTitle("Navigate to Class");
-        dialog.setHeaderText("Navigate to Class");
-        dialog.setContentText("Please enter class:");
-
-        dialog.showAndWait().ifPresent(klass -> {
-            if (!this.symphony.getJar().hasClass(klass)) return;
-            this.symphony.displayCodeTab(this.symphony.getJar().getMappings().getOrCreateTopLevelClassMapping(klass));
-        });
+        if (this.quickOpen == null) {
+            this.quickOpen = new QuickOpenPopup(this.symphony);
+        }
+        this.quickOpen.show();
     }
 
 }
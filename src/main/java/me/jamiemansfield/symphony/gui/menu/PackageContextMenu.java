@@ -0,0 +1,81 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.gui.menu;
+
+import javafx.event.ActionEvent;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextInputDialog;
+import me.jamiemansfield.symphony.gui.SymphonyMain;
+import me.jamiemansfield.symphony.jar.Jar;
+import org.cadixdev.lorenz.model.TopLevelClassMapping;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * The package context menu, shared between all packages - its actions
+ * applying to the package it was last {@link #setPackage(String) set}
+ * to.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public class PackageContextMenu extends ContextMenu {
+
+    private String packageName;
+
+    public PackageContextMenu(final SymphonyMain symphony) {
+        final MenuItem remap = new MenuItem("Set de-obfuscated name");
+        remap.addEventHandler(ActionEvent.ACTION, event -> {
+            final String packageName = this.packageName;
+            final TextInputDialog dialog = new TextInputDialog();
+            dialog.setTitle("Set de-obfuscated name");
+            dialog.setHeaderText("Set de-obfuscated name");
+            dialog.setContentText("Please enter name:");
+
+            dialog.showAndWait()
+                    .map(name -> name.endsWith("/") ? name : name + "/")
+                    .ifPresent(deobfName -> {
+                        final Jar jar = symphony.getJar();
+
+                        // Find the classes within the package, including those without mappings
+                        final List<String> klasses = jar.topLevelClasses()
+                                .filter(klass -> {
+                                    final String deobfKlass = jar.getDeobfuscatedName(klass);
+                                    final String klassPackage = deobfKlass.substring(0, Math.max(deobfKlass.lastIndexOf('/'), 0));
+                                    return Objects.equals(packageName, klassPackage) ||
+                                            klassPackage.startsWith(packageName + '/');
+                                })
+                                .collect(Collectors.toList());
+
+                        // Set the deobf name
+                        klasses.forEach(obfName -> {
+                            final TopLevelClassMapping klass = jar.getMappings().getOrCreateTopLevelClassMapping(obfName);
+                            final String className = klass.getDeobfuscatedName().substring(packageName.length() + 1);
+                            klass.setDeobfuscatedName(deobfName + className);
+                        });
+
+                        // Move the package within the view, its classes are moved once the changes are dispatched
+                        symphony.movePackage(packageName, deobfName.substring(0, deobfName.length() - 1));
+                    });
+        });
+        this.getItems().add(remap);
+    }
+
+    /**
+     * Sets the package that the menu's actions apply to.
+     *
+     * @param packageName The de-obfuscated name of the package
+     */
+    public void setPackage(final String packageName) {
+        this.packageName = packageName;
+    }
+
+}
@@ -0,0 +1,107 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.gui.menu;
+
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.VBox;
+import javafx.stage.Popup;
+import javafx.stage.Stage;
+import me.jamiemansfield.symphony.gui.SymphonyMain;
+import me.jamiemansfield.symphony.gui.util.ClassListCell;
+import me.jamiemansfield.symphony.search.ClassNameTrie;
+
+/**
+ * A popup for quickly navigating to a class, completing its name - or
+ * camel-hump abbreviation - as it is typed.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public class QuickOpenPopup extends Popup {
+
+    private static final int MAXIMUM_COMPLETIONS = 50;
+    private static final double WIDTH = 500;
+    private static final double HEIGHT = 300;
+
+    private final SymphonyMain symphony;
+    private final TextField query;
+    private final ListView<String> completions;
+
+    public QuickOpenPopup(final SymphonyMain symphony) {
+        this.symphony = symphony;
+        this.setAutoHide(true);
+        this.setHideOnEscape(true);
+
+        // Completions
+        this.completions = new ListView<>();
+        this.completions.setPrefHeight(HEIGHT);
+        this.completions.setFocusTraversable(false);
+        this.completions.setCellFactory(view -> new ClassListCell(symphony));
+        this.completions.setOnMouseClicked(event -> {
+            if (event.getClickCount() == 2) this.open();
+        });
+
+        // Query
+        this.query = new TextField();
+        this.query.setPromptText("Class name, or abbreviation");
+        this.query.textProperty().addListener((observable, oldValue, newValue) -> this.complete());
+        this.query.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.DOWN) {
+                this.completions.getSelectionModel().selectNext();
+                event.consume();
+            }
+            else if (event.getCode() == KeyCode.UP) {
+                this.completions.getSelectionModel().selectPrevious();
+                event.consume();
+            }
+            else if (event.getCode() == KeyCode.ENTER) {
+                this.open();
+            }
+        });
+
+        final VBox root = new VBox(this.query, this.completions);
+        root.setPrefWidth(WIDTH);
+        root.getStyleClass().add("quick-open");
+        this.getContent().add(root);
+    }
+
+    /**
+     * Shows the popup, centred over Symphony's window.
+     */
+    public void show() {
+        final Stage stage = this.symphony.getStage();
+        this.query.clear();
+        this.complete();
+        this.show(stage, stage.getX() + (stage.getWidth() - WIDTH) / 2, stage.getY() + stage.getHeight() / 4);
+        this.query.requestFocus();
+    }
+
+    private void complete() {
+        final ClassNameTrie classNames = this.symphony.getClassNames();
+        if (classNames == null) {
+            this.completions.setPlaceholder(new Label("Indexing classes..."));
+            this.completions.getItems().clear();
+            return;
+        }
+
+        this.completions.setPlaceholder(new Label("No matching classes"));
+        this.completions.getItems().setAll(classNames.complete(this.query.getText(), MAXIMUM_COMPLETIONS));
+        this.completions.getSelectionModel().selectFirst();
+    }
+
+    private void open() {
+        final String klass = this.completions.getSelectionModel().getSelectedItem();
+        if (klass == null) return;
+        this.hide();
+        this.symphony.displayCodeTab(this.symphony.getJar().getMappings().getOrCreateTopLevelClassMapping(klass));
+    }
+
+}
@@ -9,7 +9,8 @@ package me.jamiemansfield.symphony.gui.tab.code;
 
 import javafx.concurrent.Service;
 import javafx.concurrent.Task;
-import javafx.scene.control.ContextMenu;
+import javafx.concurrent.Worker;
+import javafx.scene.control.Label;
 import javafx.scene.control.Separator;
 import javafx.scene.control.Tab;
 import javafx.scene.control.ToolBar;
@@ -17,16 +18,28 @@ import javafx.scene.control.Tooltip;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
+import me.jamiemansfield.symphony.decompiler.Decompiler;
+import me.jamiemansfield.symphony.decompiler.DecompilerManager;
+import me.jamiemansfield.symphony.decompiler.skeleton.SkeletonDecompiler;
 import me.jamiemansfield.symphony.gui.SymphonyMain;
+import me.jamiemansfield.symphony.gui.concurrent.DecompileScheduler;
 import me.jamiemansfield.symphony.gui.concurrent.TaskManager;
 import me.jamiemansfield.symphony.gui.menu.ClassContextMenu;
 import me.jamiemansfield.symphony.gui.menu.FileMenu;
 import me.jamiemansfield.symphony.gui.util.TextFlowBuilder;
+import me.jamiemansfield.symphony.jar.DecompileAttempt;
+import me.jamiemansfield.symphony.jar.DecompileResult;
 import me.jamiemansfield.symphony.jar.Jar;
+import me.jamiemansfield.symphony.util.PropertiesKey;
+import me.jamiemansfield.symphony.util.StateHelper;
 import org.cadixdev.lorenz.model.TopLevelClassMapping;
 import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.LineNumberFactory;
 
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
 /**
  * A tab used to display the code of a file.
  *
@@ -35,21 +48,37 @@ import org.fxmisc.richtext.LineNumberFactory;
  */
 public class CodeTab extends Tab {
 
+    // The time (in seconds) each decompiler may take, before the next is tried
+    private static final PropertiesKey<Integer> DECOMPILE_TIMEOUT = PropertiesKey.integer(
+            "decompile_timeout"
+    );
+
+    private final SymphonyMain symphony;
     private final Jar jar;
     private final TopLevelClassMapping klass;
 
-    private final ContextMenu classMenu;
+    // The services of the latest update, cancelled should they be superseded
+    private SkeletonService skeletonService;
+    private DecompileService decompileService;
 
     public CodeTab(final SymphonyMain symphony, final TopLevelClassMapping klass) {
+        this.symphony = symphony;
         this.jar = symphony.getJar();
         this.klass = klass;
 
-        this.classMenu = new ClassContextMenu(symphony, klass);
+        // Stop decompiling once the tab has been closed
+        this.tabPaneProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue == null) this.cancel();
+        });
+        // The selected tab is decompiled first
+        this.selectedProperty().addListener((observable, oldValue, newValue) -> DecompileScheduler.INSTANCE.reprioritise());
 
         this.update();
     }
 
     public void update() {
+        this.cancel();
+
         this.setText(this.klass.getSimpleDeobfuscatedName());
         this.setTooltip(new Tooltip(this.klass.getFullDeobfuscatedName()));
 
@@ -60,14 +89,38 @@ public class CodeTab extends Tab {
         notice.setFont(new Font(24));
         root.setCenter(notice);
 
-        final DecompileService decompileService = new DecompileService(this.jar, this.klass);
+        final Label decompiledBy = new Label();
+        final CodeArea code = new CodeArea();
+        code.setParagraphGraphicFactory(LineNumberFactory.get(code));
+        code.setEditable(false);
+
+        // The skeleton of the class is shown while it is decompiled, and
+        // replaced in place once decompiled
+        final Jar.Snapshot snapshot = this.jar.snapshot();
+        final Supplier<DecompileScheduler.Priority> priority = () -> this.isSelected() ?
+                DecompileScheduler.Priority.SELECTED :
+                DecompileScheduler.Priority.BACKGROUND;
+        final DecompileService decompileService = this.decompileService = new DecompileService(snapshot, this.klass, priority);
+        decompileService.setExecutor(DecompileScheduler.INSTANCE.executor(priority));
+        final SkeletonService skeletonService = this.skeletonService = new SkeletonService(snapshot, this.klass);
+        skeletonService.setOnSucceeded(event -> {
+            // note: the skeleton may be slower than the decompiler, for small classes
+            if (decompileService.getState() == Worker.State.SUCCEEDED) return;
+            display(root, code, skeletonService.getValue());
+        });
         decompileService.setOnSucceeded(event -> {
-            final CodeArea code = new CodeArea(event.getSource().getValue().toString());
-            code.setParagraphGraphicFactory(LineNumberFactory.get(code));
-            code.setEditable(false);
-            JavaSyntaxHighlighting.highlight(code);
-            root.setCenter(code);
+            skeletonService.cancel();
+            final DecompileResult result = decompileService.getValue();
+            display(root, code, result.getSource());
+
+            // Show which decompiler was used, and those that failed before it
+            final DecompileAttempt attempt = result.getSuccessfulAttempt();
+            decompiledBy.setText(attempt != null ? attempt.toString() : "Every decompiler failed");
+            decompiledBy.setTooltip(new Tooltip(result.getAttempts().stream()
+                    .map(DecompileAttempt::toString)
+                    .collect(Collectors.joining("\n"))));
         });
+        skeletonService.start();
         decompileService.start();
 
         // Bottom tool bar
@@ -81,38 +134,96 @@ public class CodeTab extends Tab {
                     .style("-fx-font-style: italic")
                 .text(")")
                 .contextMenuRequested(flow -> event -> {
-                    this.classMenu.show(flow, event.getScreenX(), event.getScreenY());
+                    final ClassContextMenu classMenu = this.symphony.getClassContextMenu();
+                    classMenu.setKlass(this.klass);
+                    classMenu.show(flow, event.getScreenX(), event.getScreenY());
                 })
                 .build());
         bar.getItems().add(new Separator());
+        bar.getItems().add(decompiledBy);
         root.setBottom(bar);
 
         this.setContent(root);
     }
 
+    /**
+     * Cancels the decompile of the class, should it still be running -
+     * interrupting the decompiler.
+     */
+    public void cancel() {
+        if (this.skeletonService != null) this.skeletonService.cancel();
+        if (this.decompileService != null) this.decompileService.cancel();
+    }
+
     public TopLevelClassMapping getKlass() {
         return this.klass;
     }
 
-    private static class DecompileService extends Service<String> {
+    private static void display(final BorderPane root, final CodeArea code, final String text) {
+        code.replaceText(text);
+        code.moveTo(0);
+        JavaSyntaxHighlighting.highlight(code);
+        if (root.getCenter() != code) root.setCenter(code);
+    }
+
+    /**
+     * Builds the skeleton of a class, which is quick enough not to be
+     * tracked.
+     */
+    private static class SkeletonService extends Service<String> {
+
+        private static final Decompiler SKELETON = new SkeletonDecompiler();
 
-        private final Jar jar;
+        private final Jar.Snapshot snapshot;
         private final TopLevelClassMapping klass;
 
-        DecompileService(final Jar jar, final TopLevelClassMapping klass) {
-            this.jar = jar;
+        SkeletonService(final Jar.Snapshot snapshot, final TopLevelClassMapping klass) {
+            this.snapshot = snapshot;
             this.klass = klass;
         }
 
         @Override
         protected Task<String> createTask() {
-            return TaskManager.INSTANCE.new TrackedTask<String>() {
+            final String klass = this.klass.getFullObfuscatedName();
+            return new Task<String>() {
+                @Override
+                protected String call() {
+                    return SkeletonService.this.snapshot.decompile(SKELETON, klass);
+                }
+            };
+        }
+
+    }
+
+    private static class DecompileService extends Service<DecompileResult> {
+
+        private final Jar.Snapshot snapshot;
+        private final TopLevelClassMapping klass;
+        private final Supplier<DecompileScheduler.Priority> priority;
+
+        DecompileService(final Jar.Snapshot snapshot, final TopLevelClassMapping klass,
+                final Supplier<DecompileScheduler.Priority> priority) {
+            this.snapshot = snapshot;
+            this.klass = klass;
+            this.priority = priority;
+        }
+
+        @Override
+        protected Task<DecompileResult> createTask() {
+            final String klass = this.klass.getFullObfuscatedName();
+            return TaskManager.INSTANCE.new TrackedTask<DecompileResult>() {
                 {
                     this.updateTitle("decompile: " + DecompileService.this.klass.getSimpleDeobfuscatedName());
                 }
                 @Override
-                protected String call() {
-                    return DecompileService.this.jar.decompile(FileMenu.decompiler(), DecompileService.this.klass);
+                protected DecompileResult call() {
+                    return DecompileService.this.snapshot.decompile(
+                            DecompilerManager.getFallbacks(FileMenu.decompiler()),
+                            klass,
+                            StateHelper.get(DECOMPILE_TIMEOUT).filter(timeout -> timeout > 0).orElse(30),
+                            TimeUnit.SECONDS,
+                            DecompileScheduler.INSTANCE.attemptExecutor(DecompileService.this.priority)
+                    );
                 }
             };
         }
@@ -0,0 +1,319 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.gui.tab.code;
+
+import org.fxmisc.richtext.StyleSpans;
+import org.fxmisc.richtext.StyleSpansBuilder;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A single-pass lexer for Java source, producing the style spans used
+ * for syntax highlighting.
+ * <p>
+ * Characters are classified through a table, and adjacent tokens of the
+ * same style are merged into a single span - with the styles themselves
+ * shared, rather than created for each token.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+final class JavaLexer {
+
+    // Styles
+    private static final Collection<String> PLAIN = Collections.emptyList();
+    private static final Collection<String> KEYWORD = Collections.singletonList("keyword");
+    private static final Collection<String> PAREN = Collections.singletonList("paren");
+    private static final Collection<String> BRACE = Collections.singletonList("brace");
+    private static final Collection<String> BRACKET = Collections.singletonList("bracket");
+    private static final Collection<String> SEMICOLON = Collections.singletonList("semicolon");
+    private static final Collection<String> STRING = Collections.singletonList("string");
+    private static final Collection<String> NUMBER = Collections.singletonList("number");
+    private static final Collection<String> ANNOTATION = Collections.singletonList("annotation");
+    private static final Collection<String> COMMENT = Collections.singletonList("comment");
+
+    // Character classes, for ASCII characters
+    private static final byte OTHER = 0;
+    private static final byte IDENTIFIER = 1;
+    private static final byte DIGIT = 2;
+    private static final byte CLASS_PAREN = 3;
+    private static final byte CLASS_BRACE = 4;
+    private static final byte CLASS_BRACKET = 5;
+    private static final byte CLASS_SEMICOLON = 6;
+    private static final byte QUOTE = 7;
+    private static final byte APOSTROPHE = 8;
+    private static final byte SLASH = 9;
+    private static final byte AT = 10;
+    private static final byte DOT = 11;
+
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) CLASSES[c] = IDENTIFIER;
+        for (char c = 'A'; c <= 'Z'; c++) CLASSES[c] = IDENTIFIER;
+        for (char c = '0'; c <= '9'; c++) CLASSES[c] = DIGIT;
+        CLASSES['_'] = IDENTIFIER;
+        CLASSES['$'] = IDENTIFIER;
+        CLASSES['('] = CLASS_PAREN;
+        CLASSES[')'] = CLASS_PAREN;
+        CLASSES['{'] = CLASS_BRACE;
+        CLASSES['}'] = CLASS_BRACE;
+        CLASSES['['] = CLASS_BRACKET;
+        CLASSES[']'] = CLASS_BRACKET;
+        CLASSES[';'] = CLASS_SEMICOLON;
+        CLASSES['"'] = QUOTE;
+        CLASSES['\''] = APOSTROPHE;
+        CLASSES['/'] = SLASH;
+        CLASSES['@'] = AT;
+        CLASSES['.'] = DOT;
+    }
+
+    // Keywords, by length - so they can be matched without creating strings
+    private static final String[][] KEYWORDS = new String[13][];
+
+    static {
+        final String[] keywords = {
+                "abstract", "assert", "boolean", "break", "byte",
+                "case", "catch", "char", "class", "const",
+                "continue", "default", "do", "double", "else",
+                "enum", "extends", "final", "finally", "float",
+                "for", "goto", "if", "implements", "import",
+                "instanceof", "int", "interface", "long", "native",
+                "new", "package", "private", "protected", "public",
+                "return", "short", "static", "strictfp", "super",
+                "switch", "synchronized", "this", "throw", "throws",
+                "transient", "try", "void", "volatile", "while"
+        };
+        for (int length = 0; length < KEYWORDS.length; length++) {
+            final int keywordLength = length;
+            KEYWORDS[length] = Arrays.stream(keywords)
+                    .filter(keyword -> keyword.length() == keywordLength)
+                    .toArray(String[]::new);
+        }
+    }
+
+    /**
+     * Lexes the given Java source.
+     *
+     * @param text The source
+     * @return The style spans of the source
+     */
+    static StyleSpans<Collection<String>> lex(final String text) {
+        return new JavaLexer(text).lex();
+    }
+
+    private final String text;
+    private final int length;
+    private final StyleSpansBuilder<Collection<String>> spans = new StyleSpansBuilder<>();
+    private Collection<String> style = PLAIN;
+    private int styleStart;
+
+    private JavaLexer(final String text) {
+        this.text = text;
+        this.length = text.length();
+    }
+
+    private StyleSpans<Collection<String>> lex() {
+        if (this.length == 0) return StyleSpans.singleton(PLAIN, 0);
+
+        int i = 0;
+        while (i < this.length) {
+            final char c = this.text.charAt(i);
+            switch (c < 128 ? CLASSES[c] : (Character.isJavaIdentifierStart(c) ? IDENTIFIER : OTHER)) {
+                case IDENTIFIER: {
+                    final int end = this.identifier(i);
+                    this.emit(i, end, this.isKeyword(i, end) ? KEYWORD : PLAIN);
+                    i = end;
+                    break;
+                }
+                case DIGIT:
+                    i = this.emit(i, this.number(i), NUMBER);
+                    break;
+                case DOT:
+                    // A number, such as .5
+                    if (i + 1 < this.length && isDigit(this.text.charAt(i + 1))) {
+                        i = this.emit(i, this.number(i), NUMBER);
+                    }
+                    else {
+                        i = this.emit(i, i + 1, PLAIN);
+                    }
+                    break;
+                case CLASS_PAREN:
+                    i = this.emit(i, i + 1, PAREN);
+                    break;
+                case CLASS_BRACE:
+                    i = this.emit(i, i + 1, BRACE);
+                    break;
+                case CLASS_BRACKET:
+                    i = this.emit(i, i + 1, BRACKET);
+                    break;
+                case CLASS_SEMICOLON:
+                    i = this.emit(i, i + 1, SEMICOLON);
+                    break;
+                case QUOTE:
+                    i = this.emit(i, this.text.startsWith("\"\"\"", i) ? this.textBlock(i) : this.quoted(i, '"'), STRING);
+                    break;
+                case APOSTROPHE:
+                    i = this.emit(i, this.quoted(i, '\''), STRING);
+                    break;
+                case SLASH:
+                    if (this.text.startsWith("//", i)) {
+                        final int end = this.text.indexOf('\n', i);
+                        i = this.emit(i, end == -1 ? this.length : end, COMMENT);
+                    }
+                    else if (this.text.startsWith("/*", i)) {
+                        final int end = this.text.indexOf("*/", i + 2);
+                        i = this.emit(i, end == -1 ? this.length : end + 2, COMMENT);
+                    }
+                    else {
+                        i = this.emit(i, i + 1, PLAIN);
+                    }
+                    break;
+                case AT:
+                    // note: annotation types are declared with @interface
+                    if (this.text.startsWith("@interface", i) && this.identifier(i + 1) == i + 10) {
+                        i = this.emit(i, i + 10, KEYWORD);
+                    }
+                    else {
+                        i = this.emit(i, this.annotation(i), ANNOTATION);
+                    }
+                    break;
+                default:
+                    i = this.emit(i, i + 1, PLAIN);
+                    break;
+            }
+        }
+
+        this.flush(this.length);
+        return this.spans.create();
+    }
+
+    /**
+     * Styles the given range, merging it with the previous range should
+     * they share a style.
+     *
+     * @return The end of the range
+     */
+    private int emit(final int start, final int end, final Collection<String> style) {
+        if (style != this.style) {
+            this.flush(start);
+            this.style = style;
+            this.styleStart = start;
+        }
+        return end;
+    }
+
+    private void flush(final int end) {
+        if (end > this.styleStart) this.spans.add(this.style, end - this.styleStart);
+    }
+
+    private int identifier(final int start) {
+        int i = start + 1;
+        while (i < this.length) {
+            final char c = this.text.charAt(i);
+            if (c < 128 ? (CLASSES[c] != IDENTIFIER && CLASSES[c] != DIGIT) : !Character.isJavaIdentifierPart(c)) break;
+            i++;
+        }
+        return i;
+    }
+
+    private boolean isKeyword(final int start, final int end) {
+        final int length = end - start;
+        if (length >= KEYWORDS.length) return false;
+        for (final String keyword : KEYWORDS[length]) {
+            if (this.text.regionMatches(start, keyword, 0, length)) return true;
+        }
+        return false;
+    }
+
+    private int number(final int start) {
+        final boolean hex = this.text.startsWith("0x", start) || this.text.startsWith("0X", start);
+        int i = start + 1;
+        while (i < this.length) {
+            final char c = this.text.charAt(i);
+            if (isDigit(c) || isLetter(c) || c == '_' || c == '.') {
+                i++;
+            }
+            // The sign of an exponent, as in 1e-5 or 0x1p+3
+            else if ((c == '+' || c == '-') && isExponent(this.text.charAt(i - 1), hex)) {
+                i++;
+            }
+            else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private int quoted(final int start, final char quote) {
+        int i = start + 1;
+        while (i < this.length) {
+            final char c = this.text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            }
+            else if (c == quote) {
+                return i + 1;
+            }
+            // note: unterminated literals end with their line
+            else if (c == '\n') {
+                return i;
+            }
+            else {
+                i++;
+            }
+        }
+        return this.length;
+    }
+
+    private int textBlock(final int start) {
+        int i = start + 3;
+        while (i < this.length) {
+            final char c = this.text.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            }
+            else if (this.text.startsWith("\"\"\"", i)) {
+                return i + 3;
+            }
+            else {
+                i++;
+            }
+        }
+        return this.length;
+    }
+
+    private int annotation(final int start) {
+        int i = start + 1;
+        // Qualified annotations, such as @java.lang.Override
+        while (i < this.length) {
+            final char c = this.text.charAt(i);
+            if (c < 128 ? CLASSES[c] != IDENTIFIER : !Character.isJavaIdentifierStart(c)) break;
+            i = this.identifier(i);
+            if (i + 1 >= this.length || this.text.charAt(i) != '.') break;
+            i++;
+        }
+        // note: the trailing dot of an incomplete name isn't part of the annotation
+        return this.text.charAt(i - 1) == '.' ? i - 1 : i;
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isExponent(final char c, final boolean hex) {
+        return hex ? (c == 'p' || c == 'P') : (c == 'e' || c == 'E');
+    }
+
+}
@@ -7,77 +7,137 @@
 
 package me.jamiemansfield.symphony.gui.tab.code;
 
+import javafx.animation.AnimationTimer;
+import javafx.concurrent.Task;
 import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.StyleSpans;
-import org.fxmisc.richtext.StyleSpansBuilder;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public final class JavaSyntaxHighlighting {
 
     private JavaSyntaxHighlighting() {
     }
 
-    private static final String[] KEYWORDS = new String[] {
-            "abstract", "assert", "boolean", "break", "byte",
-            "case", "catch", "char", "class", "const",
-            "continue", "default", "do", "double", "else",
-            "enum", "extends", "final", "finally", "float",
-            "for", "goto", "if", "implements", "import",
-            "instanceof", "int", "interface", "long", "native",
-            "new", "package", "private", "protected", "public",
-            "return", "short", "static", "strictfp", "super",
-            "switch", "synchronized", "this", "throw", "throws",
-            "transient", "try", "void", "volatile", "while"
-    };
-
-    private static final String KEYWORD_PATTERN = "\\b(" + String.join("|", KEYWORDS) + ")\\b";
-    private static final String PAREN_PATTERN = "\\(|\\)";
-    private static final String BRACE_PATTERN = "\\{|\\}";
-    private static final String BRACKET_PATTERN = "\\[|\\]";
-    private static final String SEMICOLON_PATTERN = "\\;";
-    private static final String STRING_PATTERN = "\"([^\"\\\\]|\\\\.)*\"";
-    private static final String COMMENT_PATTERN = "//[^\n]*" + "|" + "/\\*(.|\\r)*?\\*/";
-
-    private static final Pattern PATTERN = Pattern.compile(
-            "(?<KEYWORD>" + KEYWORD_PATTERN + ")"
-            + "|(?<PAREN>" + PAREN_PATTERN + ")"
-            + "|(?<BRACE>" + BRACE_PATTERN + ")"
-            + "|(?<BRACKET>" + BRACKET_PATTERN + ")"
-            + "|(?<SEMICOLON>" + SEMICOLON_PATTERN + ")"
-            + "|(?<STRING>" + STRING_PATTERN + ")"
-            + "|(?<COMMENT>" + COMMENT_PATTERN + ")"
-    );
+    // The number of lines either side of the caret highlighted first, and
+    // the number of lines highlighted in each frame thereafter
+    private static final int VISIBLE_LINES = 150;
+    private static final int CHUNK_LINES = 1000;
 
+    // The code area property holding the latest highlighting task
+    private static final String HIGHLIGHTING_TASK = "symphony.highlighting";
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(2, runnable -> {
+        final Thread thread = new Thread(runnable, "highlighting");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Highlights the code within the given code area, computing the
+     * highlighting in the background.
+     * <p>
+     * The highlighting is applied a chunk of lines at a time, one chunk
+     * per frame - starting with the lines around the caret, being those
+     * visible - so large classes are readable immediately. Highlighting
+     * the code area again supersedes any highlighting still underway.
+     *
+     * @param code The code area
+     */
     public static void highlight(final CodeArea code) {
-        code.setStyleSpans(0, compute(code.getText()));
+        final String text = code.getText();
+        final Task<Highlighting> task = new Task<Highlighting>() {
+            @Override
+            protected Highlighting call() {
+                return new Highlighting(JavaLexer.lex(text), lineStarts(text));
+            }
+        };
+        code.getProperties().put(HIGHLIGHTING_TASK, task);
+        task.setOnSucceeded(event -> new HighlightingApplier(code, task, task.getValue()).start());
+        task.setOnFailed(event -> task.getException().printStackTrace());
+        EXECUTOR.execute(task);
     }
 
-    private static StyleSpans<Collection<String>> compute(final String text) {
-        final Matcher matcher = PATTERN.matcher(text);
-        int lastKwEnd = 0;
-        final StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
-
-        while (matcher.find()) {
-            String styleClass =
-                    matcher.group("KEYWORD") != null ? "keyword" :
-                    matcher.group("PAREN") != null ? "paren" :
-                    matcher.group("BRACE") != null ? "brace" :
-                    matcher.group("BRACKET") != null ? "bracket" :
-                    matcher.group("SEMICOLON") != null ? "semicolon" :
-                    matcher.group("STRING") != null ? "string" :
-                    matcher.group("COMMENT") != null ? "comment" :
-                    null; /* never happens */ assert styleClass != null;
-            spansBuilder.add(Collections.emptyList(), matcher.start() - lastKwEnd);
-            spansBuilder.add(Collections.singleton(styleClass), matcher.end() - matcher.start());
-            lastKwEnd = matcher.end();
+    private static int[] lineStarts(final String text) {
+        int lines = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') lines++;
+        }
+
+        final int[] lineStarts = new int[lines + 1];
+        int line = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') lineStarts[line++] = i + 1;
+        }
+        lineStarts[lines] = text.length();
+        return lineStarts;
+    }
+
+    private static final class Highlighting {
+
+        private final StyleSpans<Collection<String>> spans;
+        // The offset of each line, followed by the length of the text
+        private final int[] lineStarts;
+
+        Highlighting(final StyleSpans<Collection<String>> spans, final int[] lineStarts) {
+            this.spans = spans;
+            this.lineStarts = lineStarts;
+        }
+
+        int lines() {
+            return this.lineStarts.length - 1;
+        }
+
+    }
+
+    /**
+     * Applies highlighting to a code area, a chunk of lines per frame.
+     */
+    private static final class HighlightingApplier extends AnimationTimer {
+
+        private final CodeArea code;
+        private final Task<Highlighting> task;
+        private final Highlighting highlighting;
+        private final Deque<int[]> chunks = new ArrayDeque<>();
+
+        HighlightingApplier(final CodeArea code, final Task<Highlighting> task, final Highlighting highlighting) {
+            this.code = code;
+            this.task = task;
+            this.highlighting = highlighting;
+
+            // The lines around the caret first, then those after, then those before
+            final int lines = highlighting.lines();
+            final int caretLine = Math.min(code.getCurrentParagraph(), lines - 1);
+            final int visibleStart = Math.max(caretLine - VISIBLE_LINES, 0);
+            final int visibleEnd = Math.min(caretLine + VISIBLE_LINES, lines);
+            this.chunks.add(new int[] { visibleStart, visibleEnd });
+            for (int line = visibleEnd; line < lines; line += CHUNK_LINES) {
+                this.chunks.add(new int[] { line, Math.min(line + CHUNK_LINES, lines) });
+            }
+            for (int line = visibleStart; line > 0; line -= CHUNK_LINES) {
+                this.chunks.add(new int[] { Math.max(line - CHUNK_LINES, 0), line });
+            }
+        }
+
+        @Override
+        public void handle(final long now) {
+            final int[] chunk = this.chunks.poll();
+            // note: stops should the text have since been replaced, or highlighted again
+            if (chunk == null || this.code.getProperties().get(HIGHLIGHTING_TASK) != this.task ||
+                    this.code.getLength() != this.highlighting.spans.length()) {
+                this.stop();
+                return;
+            }
+
+            final int from = this.highlighting.lineStarts[chunk[0]];
+            final int to = this.highlighting.lineStarts[chunk[1]];
+            if (from < to) this.code.setStyleSpans(from, this.highlighting.spans.subView(from, to));
         }
 
-        spansBuilder.add(Collections.emptyList(), text.length() - lastKwEnd);
-        return spansBuilder.create();
     }
 
 }
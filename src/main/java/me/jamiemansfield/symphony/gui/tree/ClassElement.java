@@ -26,14 +26,22 @@ public class ClassElement implements TreeElement {
 
     private final SymphonyMain symphony;
     private final TopLevelClassMapping klass;
-
-    private final ContextMenu contextMenu;
+    private final SortKey sortKey;
 
     public ClassElement(final SymphonyMain symphony, final TopLevelClassMapping klass) {
         this.symphony = symphony;
         this.klass = klass;
+        // note: elements are re-created when their class is renamed
+        this.sortKey = SortKey.ofClass(klass.getFullDeobfuscatedName());
+    }
 
-        this.contextMenu = new ClassContextMenu(symphony, klass);
+    public TopLevelClassMapping getKlass() {
+        return this.klass;
+    }
+
+    @Override
+    public SortKey getSortKey() {
+        return this.sortKey;
     }
 
     @Override
@@ -43,7 +51,9 @@ public class ClassElement implements TreeElement {
 
     @Override
     public Optional<ContextMenu> getContextMenu() {
-        return Optional.of(this.contextMenu);
+        final ClassContextMenu contextMenu = this.symphony.getClassContextMenu();
+        contextMenu.setKlass(this.klass);
+        return Optional.of(contextMenu);
     }
 
     @Override
@@ -53,35 +63,9 @@ public class ClassElement implements TreeElement {
         return Optional.of(icon);
     }
 
-    @Override
-    public int compareTo(final TreeElement o) {
-        if (o instanceof PackageElement) return 1;
-
-        final String key0 = this.toString();
-        final String key1 = o.toString();
-
-        if (o instanceof ClassElement) {
-            final ClassElement that = (ClassElement) o;
-
-            final boolean root0 = this.klass.getDeobfuscatedPackage().isEmpty();
-            final boolean root1 = that.klass.getDeobfuscatedPackage().isEmpty();
-
-            if (root0 && root1) {
-                if (key0.length() != key1.length()) {
-                    return key0.length() - key1.length();
-                }
-                else {
-                    return key0.compareTo(key1);
-                }
-            }
-        }
-
-        return key0.compareTo(key1);
-    }
-
     @Override
     public String toString() {
-        return this.klass.getSimpleDeobfuscatedName();
+        return this.sortKey.getName();
     }
 
 }
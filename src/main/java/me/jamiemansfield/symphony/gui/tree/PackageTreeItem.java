@@ -0,0 +1,245 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.gui.tree;
+
+import javafx.collections.ObservableList;
+import javafx.scene.control.TreeItem;
+import me.jamiemansfield.symphony.gui.SymphonyMain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * A tree item for packages (and the root), that only creates the items
+ * for its classes once its children are first needed - typically, when
+ * the package is expanded.
+ * <p>
+ * Its sub-packages and classes are kept sorted as they're added, so its
+ * children needn't be sorted when created.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public class PackageTreeItem extends TreeItem<TreeElement> {
+
+    private static final Comparator<TreeItem<TreeElement>> COMPARATOR = Comparator.comparing(TreeItem::getValue);
+    private static final Comparator<ClassEntry> CLASS_COMPARATOR = Comparator.comparing(entry -> entry.sortKey);
+
+    /**
+     * Sorts the given top-level classes in the order they're shown in,
+     * computing the sort key of each class only once - so they may be
+     * added to their packages in order. This needn't be called on the
+     * JavaFX application thread.
+     *
+     * @param klasses The obfuscated names of the classes
+     * @param deobfNames A function giving the de-obfuscated name of a class
+     * @return The sorted classes
+     */
+    public static List<String> sortClasses(final Collection<String> klasses, final UnaryOperator<String> deobfNames) {
+        final List<ClassEntry> entries = new ArrayList<>(klasses.size());
+        for (final String klass : klasses) {
+            entries.add(new ClassEntry(klass, SortKey.ofClass(deobfNames.apply(klass))));
+        }
+        entries.sort(CLASS_COMPARATOR);
+
+        final List<String> sorted = new ArrayList<>(entries.size());
+        for (final ClassEntry entry : entries) {
+            sorted.add(entry.klass);
+        }
+        return sorted;
+    }
+
+    private final SymphonyMain symphony;
+    private String name;
+    private final List<PackageTreeItem> packages = new ArrayList<>();
+    private final List<ClassEntry> classes = new ArrayList<>();
+    private boolean populated;
+
+    public PackageTreeItem(final SymphonyMain symphony, final String name) {
+        super(name.isEmpty() ? new RootElement() : new PackageElement(symphony, name));
+        this.symphony = symphony;
+        this.name = name;
+    }
+
+    /**
+     * Gets the de-obfuscated name of the package, which will be empty
+     * for the root.
+     *
+     * @return The package name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Renames the package, keeping its children (and their state).
+     *
+     * @param name The de-obfuscated name of the package
+     */
+    public void setName(final String name) {
+        this.name = name;
+        this.setValue(new PackageElement(this.symphony, name));
+    }
+
+    /**
+     * Establishes whether the package contains no classes, or
+     * sub-packages.
+     *
+     * @return {@code true} if the package is empty
+     */
+    public boolean isEmpty() {
+        return this.packages.isEmpty() && this.classes.isEmpty();
+    }
+
+    /**
+     * Adds the given sub-package to the package.
+     *
+     * @param packageItem The sub-package
+     */
+    public void addPackage(final PackageTreeItem packageItem) {
+        insert(this.packages, packageItem, COMPARATOR);
+        if (this.populated) insert(super.getChildren(), packageItem, COMPARATOR);
+    }
+
+    /**
+     * Removes the given sub-package from the package.
+     *
+     * @param packageItem The sub-package
+     */
+    public void removePackage(final PackageTreeItem packageItem) {
+        this.packages.remove(packageItem);
+        if (this.populated) super.getChildren().remove(packageItem);
+    }
+
+    /**
+     * Adds the given top-level class to the package.
+     *
+     * @param klass The obfuscated name of the class
+     */
+    public void addClass(final String klass) {
+        this.addClass(klass, null);
+    }
+
+    /**
+     * Adds the given top-level class to the package, re-using its
+     * existing tree item - should it have one, and the package's
+     * children have been created.
+     *
+     * @param klass The obfuscated name of the class
+     * @param item The class's existing tree item, or {@code null}
+     */
+    public void addClass(final String klass, final TreeItem<TreeElement> item) {
+        final ClassEntry entry = new ClassEntry(klass, SortKey.ofClass(this.symphony.getJar().getDeobfuscatedName(klass)));
+        insert(this.classes, entry, CLASS_COMPARATOR);
+        if (!this.populated) return;
+
+        if (item == null) {
+            insert(super.getChildren(), this.createClassItem(klass), COMPARATOR);
+        }
+        else {
+            // The class may have been renamed, so its element is re-created
+            item.setValue(this.createClassElement(klass));
+            insert(super.getChildren(), item, COMPARATOR);
+        }
+    }
+
+    /**
+     * Removes the given top-level class from the package.
+     *
+     * @param klass The obfuscated name of the class
+     * @return The class's tree item, or {@code null} should it not have
+     *         been created
+     */
+    public TreeItem<TreeElement> removeClass(final String klass) {
+        this.classes.removeIf(entry -> entry.klass.equals(klass));
+        final TreeItem<TreeElement> item = this.getClassItem(klass);
+        if (item != null) super.getChildren().remove(item);
+        return item;
+    }
+
+    /**
+     * Gets the tree item of the given top-level class, should the
+     * package's children have been created.
+     *
+     * @param klass The obfuscated name of the class
+     * @return The class's tree item, or {@code null}
+     */
+    public TreeItem<TreeElement> getClassItem(final String klass) {
+        if (!this.populated) return null;
+        for (final TreeItem<TreeElement> child : super.getChildren()) {
+            if (child.getValue() instanceof ClassElement &&
+                    Objects.equals(klass, ((ClassElement) child.getValue()).getKlass().getFullObfuscatedName())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isLeaf() {
+        return false;
+    }
+
+    @Override
+    public ObservableList<TreeItem<TreeElement>> getChildren() {
+        if (!this.populated) {
+            this.populated = true;
+            this.populate();
+        }
+        return super.getChildren();
+    }
+
+    private void populate() {
+        // note: both are already sorted, and packages are sorted before classes
+        final List<TreeItem<TreeElement>> children = new ArrayList<>(this.packages.size() + this.classes.size());
+        children.addAll(this.packages);
+        for (final ClassEntry entry : this.classes) {
+            children.add(this.createClassItem(entry.klass));
+        }
+        super.getChildren().setAll(children);
+    }
+
+    private TreeItem<TreeElement> createClassItem(final String klass) {
+        return new TreeItem<>(this.createClassElement(klass));
+    }
+
+    private ClassElement createClassElement(final String klass) {
+        return new ClassElement(
+                this.symphony,
+                this.symphony.getJar().getMappings().getOrCreateTopLevelClassMapping(klass)
+        );
+    }
+
+    private static <T> void insert(final List<T> list, final T element, final Comparator<? super T> comparator) {
+        // Classes are typically added in order, so are appended
+        if (list.isEmpty() || comparator.compare(list.get(list.size() - 1), element) <= 0) {
+            list.add(element);
+            return;
+        }
+        final int index = Collections.binarySearch(list, element, comparator);
+        list.add(index < 0 ? -(index + 1) : index, element);
+    }
+
+    private static final class ClassEntry {
+
+        private final String klass;
+        private final SortKey sortKey;
+
+        ClassEntry(final String klass, final SortKey sortKey) {
+            this.klass = klass;
+            this.sortKey = sortKey;
+        }
+
+    }
+
+}
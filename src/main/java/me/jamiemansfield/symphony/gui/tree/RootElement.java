@@ -21,6 +21,12 @@ import java.util.Optional;
 public class RootElement implements TreeElement {
 
     private static final String NAME = "root";
+    private static final SortKey SORT_KEY = SortKey.ofPackage(NAME);
+
+    @Override
+    public SortKey getSortKey() {
+        return SORT_KEY;
+    }
 
     @Override
     public void activate() {
@@ -36,11 +42,6 @@ public class RootElement implements TreeElement {
         return Optional.empty();
     }
 
-    @Override
-    public int compareTo(final TreeElement o) {
-        return 0;
-    }
-
     @Override
     public String toString() {
         return NAME;
@@ -0,0 +1,74 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.gui.tree;
+
+/**
+ * The immutable key by which tree elements are sorted, computed once
+ * when the element is created - rather than on every comparison.
+ * <p>
+ * Packages are sorted before classes, and classes within the root
+ * package (typically obfuscated) are sorted by length first - so that
+ * {@code b} comes before {@code aa}.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public final class SortKey implements Comparable<SortKey> {
+
+    private static final int PACKAGE = 0;
+    private static final int CLASS = 1;
+
+    /**
+     * Creates the sort key of the given package.
+     *
+     * @param name The de-obfuscated name of the package
+     * @return The sort key
+     */
+    public static SortKey ofPackage(final String name) {
+        return new SortKey(PACKAGE, 0, name.substring(name.lastIndexOf('/') + 1));
+    }
+
+    /**
+     * Creates the sort key of the given class.
+     *
+     * @param name The full de-obfuscated name of the class
+     * @return The sort key
+     */
+    public static SortKey ofClass(final String name) {
+        final int packageIndex = name.lastIndexOf('/');
+        final String simpleName = name.substring(packageIndex + 1);
+        return new SortKey(CLASS, packageIndex == -1 ? simpleName.length() : 0, simpleName);
+    }
+
+    private final int kind;
+    private final int length;
+    private final String name;
+
+    private SortKey(final int kind, final int length, final String name) {
+        this.kind = kind;
+        this.length = length;
+        this.name = name;
+    }
+
+    /**
+     * Gets the simple name of the element.
+     *
+     * @return The simple name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public int compareTo(final SortKey o) {
+        if (this.kind != o.kind) return Integer.compare(this.kind, o.kind);
+        if (this.length != o.length) return Integer.compare(this.length, o.length);
+        return this.name.compareTo(o.name);
+    }
+
+}
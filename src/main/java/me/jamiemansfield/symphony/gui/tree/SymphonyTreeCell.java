@@ -18,20 +18,28 @@ import javafx.scene.control.TreeCell;
  */
 public class SymphonyTreeCell extends TreeCell<TreeElement> {
 
+    public SymphonyTreeCell() {
+        // Context menus are shared, so are only fetched when requested
+        this.setOnContextMenuRequested(event -> {
+            final TreeElement item = this.getItem();
+            if (this.isEmpty() || item == null) return;
+            item.getContextMenu().ifPresent(menu -> menu.show(this, event.getScreenX(), event.getScreenY()));
+            event.consume();
+        });
+    }
+
     @Override
     protected void updateItem(final TreeElement item, final boolean empty) {
         super.updateItem(item, empty);
         if (empty || item == null) {
             this.setText(null);
             this.setGraphic(null);
-            this.setContextMenu(null);
             return;
         }
 
         // Make the cell look proper
         this.setText(item.toString());
-        item.getGraphic().ifPresent(this::setGraphic);
-        item.getContextMenu().ifPresent(this::setContextMenu);
+        this.setGraphic(item.getGraphic().orElse(null));
     }
 
 }
@@ -28,6 +28,13 @@ public interface TreeElement extends Comparable<TreeElement> {
     @Override
     String toString();
 
+    /**
+     * Gets the key by which the element is sorted.
+     *
+     * @return The sort key
+     */
+    SortKey getSortKey();
+
     /**
      * Invoked when the element is double clicked, or other
      * equivalent action.
@@ -35,7 +42,9 @@ public interface TreeElement extends Comparable<TreeElement> {
     void activate();
 
     /**
-     * Gets the context menu of this tree element, if applicable.
+     * Gets the context menu of this tree element, if applicable - invoked
+     * only once the menu has been requested, as menus may be shared
+     * between elements.
      *
      * @return The context menu
      */
@@ -48,4 +57,9 @@ public interface TreeElement extends Comparable<TreeElement> {
      */
     Optional<Node> getGraphic();
 
+    @Override
+    default int compareTo(final TreeElement o) {
+        return this.getSortKey().compareTo(o.getSortKey());
+    }
+
 }
@@ -0,0 +1,40 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.gui.util;
+
+import javafx.scene.control.ListCell;
+import me.jamiemansfield.symphony.gui.SymphonyMain;
+
+/**
+ * A list cell for classes, given by their obfuscated names - showing
+ * their de-obfuscated names, and obfuscated names should they differ.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public class ClassListCell extends ListCell<String> {
+
+    private final SymphonyMain symphony;
+
+    public ClassListCell(final SymphonyMain symphony) {
+        this.symphony = symphony;
+    }
+
+    @Override
+    protected void updateItem(final String klass, final boolean empty) {
+        super.updateItem(klass, empty);
+        if (empty || klass == null || this.symphony.getJar() == null) {
+            this.setText(null);
+            return;
+        }
+
+        final String deobfName = this.symphony.getJar().getDeobfuscatedName(klass);
+        this.setText(deobfName.equals(klass) ? deobfName : deobfName + " (" + klass + ")");
+    }
+
+}
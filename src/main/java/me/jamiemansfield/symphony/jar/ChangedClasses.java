@@ -0,0 +1,92 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The set of classes whose remapped form has been affected by changes
+ * to the mappings - either because they were renamed themselves, or
+ * because they refer to a class that was.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public final class ChangedClasses {
+
+    static final ChangedClasses NONE = new ChangedClasses(false, Collections.emptySet(), Collections.emptySet());
+
+    static ChangedClasses of(final boolean all, final Set<String> classes, final Set<String> renamed) {
+        if (!all && classes.isEmpty() && renamed.isEmpty()) return NONE;
+        return new ChangedClasses(all,
+                all ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(classes)),
+                Collections.unmodifiableSet(new HashSet<>(renamed)));
+    }
+
+    private final boolean all;
+    private final Set<String> classes;
+    private final Set<String> renamed;
+
+    private ChangedClasses(final boolean all, final Set<String> classes, final Set<String> renamed) {
+        this.all = all;
+        this.classes = classes;
+        this.renamed = renamed;
+    }
+
+    /**
+     * Establishes whether every class should be considered changed, as
+     * the extent of the changes couldn't be determined.
+     *
+     * @return {@code true} if every class has changed
+     */
+    public boolean isAll() {
+        return this.all;
+    }
+
+    /**
+     * Establishes whether no classes have changed.
+     *
+     * @return {@code true} if nothing has changed
+     */
+    public boolean isEmpty() {
+        return !this.all && this.classes.isEmpty();
+    }
+
+    /**
+     * Establishes whether the given class has changed.
+     *
+     * @param klass The obfuscated name of the class
+     * @return {@code true} if the class has changed
+     */
+    public boolean contains(final String klass) {
+        return this.all || this.classes.contains(klass);
+    }
+
+    /**
+     * Gets the obfuscated names of the changed classes, which will be
+     * empty should {@link #isAll() every class} have changed.
+     *
+     * @return The changed classes
+     */
+    public Set<String> getClasses() {
+        return this.classes;
+    }
+
+    /**
+     * Gets the obfuscated names of the classes whose de-obfuscated names
+     * have changed - a subset of the changed classes.
+     *
+     * @return The renamed classes
+     */
+    public Set<String> getRenamedClasses() {
+        return this.renamed;
+    }
+
+}
@@ -0,0 +1,213 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bidirectional index of the obfuscated and de-obfuscated names of
+ * the renamed classes within a jar, maintained as the mappings change -
+ * so de-obfuscated names can be resolved without reversing the mappings.
+ * <p>
+ * Classes that haven't been renamed aren't indexed, their names being
+ * the same either way.
+ * <p>
+ * Each name is versioned by the generation of the mappings it was given
+ * at, so a view of the index {@link #at(int) as of a generation} shares
+ * the index - rather than copying it - and is unaffected by later changes.
+ * Names are only kept for as long as a view could still read them, so
+ * versions older than the oldest view still in use are pruned.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+class ClassNameIndex {
+
+    private static final int LATEST = Integer.MAX_VALUE;
+
+    private final Map<String, Version> obfToDeobf;
+    private final Map<String, Version> deobfToObf;
+    private final int generation;
+
+    // The views of the index still in use, which are weakly held so the
+    // versions only they could read can be pruned once they're collected
+    private final Set<View> views;
+    private final ReferenceQueue<ClassNameIndex> collectedViews;
+
+    ClassNameIndex() {
+        this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), LATEST,
+                ConcurrentHashMap.newKeySet(), new ReferenceQueue<>());
+    }
+
+    private ClassNameIndex(final Map<String, Version> obfToDeobf, final Map<String, Version> deobfToObf,
+            final int generation, final Set<View> views, final ReferenceQueue<ClassNameIndex> collectedViews) {
+        this.obfToDeobf = obfToDeobf;
+        this.deobfToObf = deobfToObf;
+        this.generation = generation;
+        this.views = views;
+        this.collectedViews = collectedViews;
+    }
+
+    /**
+     * Records the de-obfuscated name of the given class, as of the given
+     * generation of the mappings.
+     * <p>
+     * Generations must be recorded in order, from a single thread.
+     * <p>
+     * The versions of the changed names that no view in use can read
+     * are pruned as they're recorded.
+     *
+     * @param obfName The obfuscated name of the class
+     * @param deobfName The de-obfuscated name of the class
+     * @param generation The generation of the mappings
+     */
+    void put(final String obfName, final String deobfName, final int generation) {
+        final int oldest = this.getOldestView();
+        final String previous = get(this.obfToDeobf, obfName, LATEST);
+        final boolean renamed = !obfName.equals(deobfName);
+        put(this.obfToDeobf, obfName, renamed ? deobfName : null, generation, oldest);
+        if (previous != null && obfName.equals(get(this.deobfToObf, previous, LATEST))) {
+            put(this.deobfToObf, previous, null, generation, oldest);
+        }
+        if (renamed) put(this.deobfToObf, deobfName, obfName, generation, oldest);
+    }
+
+    private int getOldestView() {
+        for (View view; (view = (View) this.collectedViews.poll()) != null; ) {
+            this.views.remove(view);
+        }
+        int oldest = LATEST;
+        for (final View view : this.views) {
+            oldest = Math.min(oldest, view.generation);
+        }
+        return oldest;
+    }
+
+    /**
+     * Gets the de-obfuscated name of the given class.
+     *
+     * @param obfName The obfuscated name of the class
+     * @return The de-obfuscated name
+     */
+    String getDeobfuscatedName(final String obfName) {
+        final String deobfName = get(this.obfToDeobf, obfName, this.generation);
+        return deobfName != null ? deobfName : obfName;
+    }
+
+    /**
+     * Gets the obfuscated name of the given class.
+     * <p>
+     * Inner classes that aren't indexed are resolved through their
+     * outer classes - so classes outside of the jar, nested within a
+     * renamed class, are still resolved.
+     *
+     * @param deobfName The de-obfuscated name of the class
+     * @return The obfuscated name
+     */
+    String getObfuscatedName(final String deobfName) {
+        final String obfName = get(this.deobfToObf, deobfName, this.generation);
+        if (obfName != null) return obfName;
+
+        final int packageIndex = deobfName.lastIndexOf('/');
+        for (int index = deobfName.lastIndexOf('$'); index > packageIndex; index = deobfName.lastIndexOf('$', index - 1)) {
+            final String outerObfName = get(this.deobfToObf, deobfName.substring(0, index), this.generation);
+            if (outerObfName != null) return outerObfName + deobfName.substring(index);
+        }
+        return deobfName;
+    }
+
+    /**
+     * Gets a view of the index as of the given generation of the
+     * mappings, that won't be affected by further changes to this index.
+     * <p>
+     * As names no view could read are pruned, a view must be taken of
+     * the latest generation - as a snapshot is.
+     *
+     * @param generation The generation of the mappings
+     * @return The view
+     */
+    ClassNameIndex at(final int generation) {
+        final ClassNameIndex view = new ClassNameIndex(this.obfToDeobf, this.deobfToObf, generation,
+                this.views, this.collectedViews);
+        this.views.add(new View(view, this.collectedViews));
+        return view;
+    }
+
+    private static String get(final Map<String, Version> names, final String key, final int generation) {
+        Version version = names.get(key);
+        while (version != null && version.generation > generation) {
+            version = version.previous;
+        }
+        return version != null ? version.name : null;
+    }
+
+    private static void put(final Map<String, Version> names, final String key, final String name,
+            final int generation, final int oldest) {
+        names.compute(key, (k, latest) -> {
+            // note: only the latest name of a generation is kept
+            final Version previous = prune(latest != null && latest.generation == generation ? latest.previous : latest,
+                    Math.min(oldest, generation));
+            if (previous == null && name == null) return null;
+            return new Version(generation, name, previous);
+        });
+    }
+
+    /**
+     * Prunes the versions that no view of the given generation, or
+     * later, would read - those older than the latest as of it.
+     */
+    private static Version prune(final Version version, final int oldest) {
+        if (version == null) return null;
+        // note: the latest version as of the oldest view is the last that can be read,
+        //       and is of no use if it marks that there is no name - as would its absence
+        if (version.generation <= oldest) return version.name != null ? version.withoutPrevious() : null;
+        final Version previous = prune(version.previous, oldest);
+        return previous == version.previous ? version : new Version(version.generation, version.name, previous);
+    }
+
+    /**
+     * A view of the index in use, by the generation it was taken of.
+     */
+    private static final class View extends WeakReference<ClassNameIndex> {
+
+        private final int generation;
+
+        View(final ClassNameIndex view, final ReferenceQueue<ClassNameIndex> queue) {
+            super(view, queue);
+            this.generation = view.generation;
+        }
+
+    }
+
+    /**
+     * A name, given at a generation of the mappings, and the name it
+     * replaced - a {@code null} name marking that there is none.
+     */
+    private static final class Version {
+
+        private final int generation;
+        private final String name;
+        private final Version previous;
+
+        Version(final int generation, final String name, final Version previous) {
+            this.generation = generation;
+            this.name = name;
+            this.previous = previous;
+        }
+
+        Version withoutPrevious() {
+            return this.previous == null ? this : new Version(this.generation, this.name, null);
+        }
+
+    }
+
+}
@@ -0,0 +1,44 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import org.cadixdev.bombe.analysis.CachingInheritanceProvider;
+import org.cadixdev.bombe.analysis.InheritanceProvider;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe equivalent of {@link CachingInheritanceProvider}, so
+ * that remappers may be shared between concurrent decompiles.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+class ConcurrentCachingInheritanceProvider implements InheritanceProvider {
+
+    private final InheritanceProvider provider;
+    private final Map<String, Optional<ClassInfo>> cache = new ConcurrentHashMap<>();
+
+    ConcurrentCachingInheritanceProvider(final InheritanceProvider provider) {
+        this.provider = provider;
+    }
+
+    @Override
+    public Optional<ClassInfo> provide(final String klass) {
+        // note: computeIfAbsent isn't used, as providing a class may recursively provide others
+        final Optional<ClassInfo> cached = this.cache.get(klass);
+        if (cached != null) return cached;
+
+        final Optional<ClassInfo> info = this.provider.provide(klass);
+        final Optional<ClassInfo> existing = this.cache.putIfAbsent(klass, info);
+        return existing != null ? existing : info;
+    }
+
+}
@@ -0,0 +1,82 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A record of a single attempt at decompiling a class, with one of the
+ * decompilers of a fallback chain.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public final class DecompileAttempt {
+
+    private final String decompiler;
+    private final Outcome outcome;
+    private final long elapsed;
+
+    DecompileAttempt(final String decompiler, final Outcome outcome, final long elapsed) {
+        this.decompiler = decompiler;
+        this.outcome = outcome;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Gets the name of the decompiler attempted.
+     *
+     * @return The decompiler name
+     */
+    public String getDecompiler() {
+        return this.decompiler;
+    }
+
+    /**
+     * Gets the outcome of the attempt.
+     *
+     * @return The outcome
+     */
+    public Outcome getOutcome() {
+        return this.outcome;
+    }
+
+    /**
+     * Gets the time the attempt took.
+     *
+     * @param unit The unit of time
+     * @return The elapsed time
+     */
+    public long getElapsed(final TimeUnit unit) {
+        return unit.convert(this.elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s (%d ms)", this.decompiler, this.outcome.name().toLowerCase().replace('_', ' '),
+                this.getElapsed(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * The possible outcomes of an attempt.
+     */
+    public enum Outcome {
+
+        SUCCEEDED,
+        FAILED,
+        TIMED_OUT,
+        /**
+         * The decompiler wasn't attempted, having timed out on the class
+         * before.
+         */
+        SKIPPED,
+        ;
+
+    }
+
+}
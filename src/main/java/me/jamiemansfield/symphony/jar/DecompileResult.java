@@ -0,0 +1,61 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of decompiling a class through a chain of decompilers - the
+ * source, and the attempts made to produce it.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public final class DecompileResult {
+
+    private final String source;
+    private final List<DecompileAttempt> attempts;
+
+    DecompileResult(final String source, final List<DecompileAttempt> attempts) {
+        this.source = source;
+        this.attempts = Collections.unmodifiableList(attempts);
+    }
+
+    /**
+     * Gets the re-constructed source code.
+     *
+     * @return The source
+     */
+    public String getSource() {
+        return this.source;
+    }
+
+    /**
+     * Gets the attempts made at decompiling the class, in the order they
+     * were made - the last being that which succeeded, if any did.
+     *
+     * @return The attempts
+     */
+    public List<DecompileAttempt> getAttempts() {
+        return this.attempts;
+    }
+
+    /**
+     * Gets the attempt that produced the source.
+     *
+     * @return The successful attempt, or {@code null} should every
+     *         decompiler have failed
+     */
+    public DecompileAttempt getSuccessfulAttempt() {
+        if (this.attempts.isEmpty()) return null;
+        final DecompileAttempt last = this.attempts.get(this.attempts.size() - 1);
+        return last.getOutcome() == DecompileAttempt.Outcome.SUCCEEDED ? last : null;
+    }
+
+}
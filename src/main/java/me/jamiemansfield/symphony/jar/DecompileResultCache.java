@@ -0,0 +1,168 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * A size-bounded, least-recently-used cache of decompiled sources, keyed
+ * by obfuscated class name, decompiler, and the generation of the
+ * mappings the class was decompiled with - weighed by the length of the
+ * sources.
+ * <p>
+ * As with the {@link RemappedClassCache}, cached sources remain valid for
+ * later generations of the mappings, until the class (or one of its inner
+ * classes) is invalidated.
+ * <p>
+ * Concurrent requests for the same source share a single decompile -
+ * should that decompile be cancelled, those waiting upon it carry on
+ * with a decompile of their own.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+final class DecompileResultCache {
+
+    private final long maximumWeight;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Entry> inFlight = new HashMap<>();
+    private long weight;
+
+    DecompileResultCache(final long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * Gets the source of the given class, decompiling it should it not be
+     * cached - or waiting for it, should it already be being decompiled.
+     *
+     * @param klass The obfuscated name of the top-level class
+     * @param decompiler The name of the decompiler
+     * @param generation The mappings generation
+     * @param lastChanged The generation of the mappings at which the
+     *                    remapped form of the class, or its inner classes,
+     *                    last changed
+     * @param decompile The decompile, to run should the source not be
+     *                  cached
+     * @return The source
+     */
+    String get(final String klass, final String decompiler, final int generation, final int lastChanged,
+            final Supplier<String> decompile) {
+        final String key = decompiler + '\0' + klass;
+        while (true) {
+            final Entry entry;
+            final boolean owner;
+            synchronized (this) {
+                final Entry cached = this.entries.get(key);
+                if (cached != null && lastChanged <= Math.min(cached.generation, generation)) return cached.source.join();
+
+                final Entry running = this.inFlight.get(key);
+                owner = running == null || lastChanged > Math.min(running.generation, generation);
+                if (owner) {
+                    entry = new Entry(generation, new CompletableFuture<>());
+                    // note: a decompile with out-of-date mappings is left running, but no longer shared
+                    this.inFlight.put(key, entry);
+                }
+                else {
+                    entry = running;
+                }
+            }
+            if (owner) return this.decompile(key, entry, decompile);
+
+            try {
+                return await(entry);
+            }
+            catch (final CancellationException ex) {
+                // Only the decompile waited upon was cancelled, so try again
+                if (Thread.currentThread().isInterrupted()) throw ex;
+            }
+        }
+    }
+
+    private String decompile(final String key, final Entry entry, final Supplier<String> decompile) {
+        final String source;
+        try {
+            source = decompile.get();
+        }
+        catch (final RuntimeException | Error ex) {
+            synchronized (this) {
+                this.inFlight.remove(key, entry);
+            }
+            entry.source.completeExceptionally(ex);
+            throw ex;
+        }
+
+        synchronized (this) {
+            this.inFlight.remove(key, entry);
+            this.put(key, entry, source);
+        }
+        entry.source.complete(source);
+        return source;
+    }
+
+    private void put(final String key, final Entry entry, final String source) {
+        final Entry previous = this.entries.get(key);
+        // Don't replace sources decompiled with newer mappings
+        if (source == null || previous != null && previous.generation > entry.generation) return;
+        if (previous != null) this.weight -= previous.weight;
+
+        entry.weight = source.length();
+        this.entries.put(key, entry);
+        this.weight += entry.weight;
+
+        final Iterator<Entry> it = this.entries.values().iterator();
+        while (this.weight > this.maximumWeight && it.hasNext()) {
+            this.weight -= it.next().weight;
+            it.remove();
+        }
+    }
+
+    private static String await(final Entry entry) {
+        try {
+            return entry.source.get();
+        }
+        catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for decompile");
+        }
+        catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            if (ex.getCause() instanceof Error) throw (Error) ex.getCause();
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Removes all sources from the cache.
+     */
+    synchronized void clear() {
+        this.entries.clear();
+        this.weight = 0;
+    }
+
+    private static final class Entry {
+
+        private final int generation;
+        private final CompletableFuture<String> source;
+        private long weight;
+
+        Entry(final int generation, final CompletableFuture<String> source) {
+            this.generation = generation;
+            this.source = source;
+        }
+
+    }
+
+}
@@ -0,0 +1,228 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import me.jamiemansfield.symphony.SharedConstants;
+import me.jamiemansfield.symphony.decompiler.Decompiler;
+import me.jamiemansfield.symphony.decompiler.WrappedBytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An on-disk cache of decompiled sources, keyed by the SHA-256 of the
+ * remapped bytecode of the top-level class and its inner classes, along
+ * with the decompiler and its options - so a class that has been
+ * decompiled before, in the same form, needn't be decompiled again.
+ * <p>
+ * Sources are stored compressed, and only the most recently used are
+ * kept once the cache grows beyond its maximum size.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+final class DecompiledSourceCache {
+
+    /**
+     * The source cache, within Symphony's configuration directory.
+     */
+    static final DecompiledSourceCache INSTANCE =
+            new DecompiledSourceCache(SharedConstants.CONFIG_PATH.resolve("sources"), 256L * 1024 * 1024);
+
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".java.gz";
+
+    private final Path directory;
+    private final long maximumSize;
+    // The total size of the cached sources, or -1 until first measured
+    private long size = -1;
+
+    DecompiledSourceCache(final Path directory, final long maximumSize) {
+        this.directory = directory;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Computes the key of the given class's source, as decompiled by the
+     * given decompiler.
+     *
+     * @param decompiler The decompiler
+     * @param klass The remapped top-level class
+     * @param innerKlasses The remapped inner classes
+     * @return The key
+     */
+    static String key(final Decompiler decompiler, final WrappedBytecode klass, final WrappedBytecode... innerKlasses) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, "symphony-" + SharedConstants.VERSION + "-" + VERSION);
+            update(digest, decompiler.getName());
+            for (final Map.Entry<String, ?> option : new TreeMap<>(decompiler.getOptions()).entrySet()) {
+                update(digest, option.getKey() + "=" + option.getValue());
+            }
+
+            update(digest, klass);
+            // note: the inner classes are sorted, so their order doesn't matter
+            final WrappedBytecode[] sorted = innerKlasses.clone();
+            Arrays.sort(sorted, Comparator.comparing(WrappedBytecode::getName));
+            for (final WrappedBytecode innerKlass : sorted) {
+                update(digest, innerKlass);
+            }
+
+            final StringBuilder key = new StringBuilder();
+            for (final byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        }
+        catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void update(final MessageDigest digest, final WrappedBytecode klass) {
+        update(digest, klass.getName());
+        update(digest, klass.getBytecode());
+    }
+
+    private static void update(final MessageDigest digest, final String string) {
+        update(digest, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void update(final MessageDigest digest, final byte[] bytes) {
+        // note: prefixed by their length, so adjacent values can't collide
+        final int length = bytes.length;
+        digest.update(new byte[] { (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length });
+        digest.update(bytes);
+    }
+
+    /**
+     * Loads the cached source with the given key.
+     *
+     * @param key The key, from {@link #key(Decompiler, WrappedBytecode, WrappedBytecode...)}
+     * @return The source, or {@code null} if not cached
+     */
+    String load(final String key) {
+        final Path path = this.directory.resolve(key + EXTENSION);
+        try (final InputStream in = new GZIPInputStream(Files.newInputStream(path))) {
+            final ByteArrayOutputStream source = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                source.write(buffer, 0, read);
+            }
+
+            // Mark the source as recently used
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return new String(source.toByteArray(), StandardCharsets.UTF_8);
+        }
+        catch (final NoSuchFileException | ClosedByInterruptException ignored) {
+            return null;
+        }
+        catch (final IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Caches the given source, evicting the least recently used sources
+     * should the cache become too large.
+     *
+     * @param key The key, from {@link #key(Decompiler, WrappedBytecode, WrappedBytecode...)}
+     * @param source The source
+     */
+    void save(final String key, final String source) {
+        try {
+            Files.createDirectories(this.directory);
+            final Path path = this.directory.resolve(key + EXTENSION);
+            final Path temporary = Files.createTempFile(this.directory, key, ".tmp");
+            try {
+                try (final OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary))) {
+                    out.write(source.getBytes(StandardCharsets.UTF_8));
+                }
+                final long written = Files.size(temporary);
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+                this.added(written);
+            }
+            finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+        catch (final ClosedByInterruptException ignored) {
+        }
+        catch (final IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private synchronized void added(final long written) throws IOException {
+        // note: the cache is only measured once, and then kept track of
+        if (this.size == -1) {
+            this.size = 0;
+            for (final Path path : this.sources()) {
+                this.size += path.toFile().length();
+            }
+        }
+        else {
+            this.size += written;
+        }
+        if (this.size > this.maximumSize) this.evict();
+    }
+
+    private void evict() throws IOException {
+        // Evict down to three quarters of the maximum size, so as not to
+        // evict again with every source saved
+        final List<Path> sources = this.sources();
+        final long[] sizes = new long[sources.size()];
+        final long[] lastModified = new long[sources.size()];
+        final Integer[] order = new Integer[sources.size()];
+        this.size = 0;
+        for (int i = 0; i < order.length; i++) {
+            final Path path = sources.get(i);
+            sizes[i] = path.toFile().length();
+            lastModified[i] = path.toFile().lastModified();
+            order[i] = i;
+            this.size += sizes[i];
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> lastModified[i]));
+
+        final long target = this.maximumSize / 4 * 3;
+        for (int i = 0; i < order.length && this.size > target; i++) {
+            Files.deleteIfExists(sources.get(order[i]));
+            this.size -= sizes[order[i]];
+        }
+    }
+
+    private List<Path> sources() throws IOException {
+        final List<Path> sources = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*" + EXTENSION)) {
+            stream.forEach(sources::add);
+        }
+        return sources;
+    }
+
+}
@@ -8,13 +8,14 @@
 package me.jamiemansfield.symphony.jar;
 
 import org.cadixdev.bombe.asm.jar.ClassProvider;
-import org.cadixdev.lorenz.MappingSet;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.commons.Remapper;
 
 /**
- * A {@link ClassProvider} that fetches de-obfuscated bytecode.
+ * A {@link ClassProvider} that fetches de-obfuscated bytecode, caching
+ * the remapped bytecode for the generation of mappings it was created
+ * with.
  *
  * @author Jamie Mansfield
  * @since 0.1.0
@@ -22,21 +23,29 @@ import org.objectweb.asm.commons.Remapper;
 class DeobfuscatingClassProvider implements ClassProvider {
 
     private final ClassProvider obfProvider;
-    private final MappingSet mappings;
+    private final ClassNameIndex names;
     private final Remapper remapper;
+    private final RemappedClassCache cache;
+    private final int generation;
 
-    DeobfuscatingClassProvider(final ClassProvider obfProvider, final MappingSet mappings, final Remapper remapper) {
+    DeobfuscatingClassProvider(final ClassProvider obfProvider, final ClassNameIndex names, final Remapper remapper,
+                               final RemappedClassCache cache, final int generation) {
         this.obfProvider = obfProvider;
-        this.mappings = mappings;
+        this.names = names;
         this.remapper = remapper;
+        this.cache = cache;
+        this.generation = generation;
     }
 
     @Override
     public byte[] get(final String klass) {
         // Fetch the original (obfuscated) name and bytecode
-        // note: #getFullDeobfuscatedName() is used, because the mapping set is reversed [deobf -> obf]
-        final String obfName = this.mappings.reverse().getOrCreateClassMapping(klass)
-                .getFullDeobfuscatedName();
+        final String obfName = this.names.getObfuscatedName(klass);
+
+        // Use the cached bytecode, if it has already been remapped with these mappings
+        final byte[] cached = this.cache.get(obfName, this.generation);
+        if (cached != null) return cached;
+
         final byte[] obfuscated = this.obfProvider.get(obfName);
         if (obfuscated == null) return null;
 
@@ -47,7 +56,11 @@ class DeobfuscatingClassProvider implements ClassProvider {
                 writer,
                 this.remapper
         ), 0);
-        return writer.toByteArray();
+        final byte[] deobfuscated = writer.toByteArray();
+
+        // Cache the remapped bytecode
+        this.cache.put(obfName, this.generation, deobfuscated);
+        return deobfuscated;
     }
 
 }
@@ -0,0 +1,33 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+/**
+ * A listener for the progress of a remapped jar export.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+@FunctionalInterface
+public interface ExportListener {
+
+    /**
+     * An export listener that does nothing.
+     */
+    ExportListener NONE = (written, total, elapsed) -> {};
+
+    /**
+     * Invoked after each entry has been written to the remapped jar.
+     *
+     * @param written The number of entries written so far
+     * @param total The total number of entries to write
+     * @param elapsed The time since the export began, in nanoseconds
+     */
+    void onProgress(final int written, final int total, final long elapsed);
+
+}
@@ -0,0 +1,102 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * A record of a remapped jar export - the entries written for each
+ * entry of the original jar, and the generation of the mappings they
+ * were remapped with - allowing the next export to re-use the entries
+ * that haven't changed since.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+final class ExportManifest {
+
+    private final Path path;
+    private final long size;
+    private final FileTime lastModified;
+    private final int generation;
+
+    // The entries written, indexed by the original jar's entries
+    private final String[] names;
+    private final int[] crcs;
+
+    ExportManifest(final Path path, final int generation, final String[] names, final int[] crcs) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        this.path = path;
+        this.size = attributes.size();
+        this.lastModified = attributes.lastModifiedTime();
+        this.generation = generation;
+        this.names = names;
+        this.crcs = crcs;
+    }
+
+    /**
+     * Gets the path the jar was exported to.
+     *
+     * @return The export path
+     */
+    Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Gets the generation of the mappings the jar was exported with.
+     *
+     * @return The mappings generation
+     */
+    int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Gets the name of the entry written for the given entry of the
+     * original jar.
+     *
+     * @param index The index of the original entry
+     * @return The name of the written entry, or {@code null} if none
+     */
+    String getName(final int index) {
+        return this.names[index];
+    }
+
+    /**
+     * Gets the CRC-32 of the entry written for the given entry of the
+     * original jar.
+     *
+     * @param index The index of the original entry
+     * @return The CRC-32
+     */
+    int getCrc(final int index) {
+        return this.crcs[index];
+    }
+
+    /**
+     * Establishes whether the exported jar is still as it was written,
+     * so its entries may be re-used.
+     *
+     * @return {@code true} if the exported jar is unchanged
+     */
+    boolean isCurrent() {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(this.path, BasicFileAttributes.class);
+            return attributes.size() == this.size && attributes.lastModifiedTime().equals(this.lastModified);
+        }
+        catch (final IOException ignored) {
+            return false;
+        }
+    }
+
+}
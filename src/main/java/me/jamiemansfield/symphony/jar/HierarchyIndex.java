@@ -0,0 +1,314 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import org.cadixdev.bombe.analysis.InheritanceProvider;
+import org.cadixdev.bombe.analysis.InheritanceType;
+import org.cadixdev.bombe.type.signature.FieldSignature;
+import org.cadixdev.bombe.type.signature.MethodSignature;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * An index of the hierarchy of every class within a jar - their super
+ * classes, interfaces, fields and methods - built up-front, and stored
+ * as arrays of indices into a shared table of names.
+ * <p>
+ * Class information is created from the index on request, so should be
+ * cached by the consumer.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+class HierarchyIndex implements InheritanceProvider {
+
+    private static final InheritanceType[] INHERITANCE_TYPES = InheritanceType.values();
+
+    /**
+     * Reads the hierarchy information of the given class.
+     *
+     * @param bytecode The class
+     * @return The class's hierarchy information
+     */
+    static Entry read(final byte[] bytecode) {
+        final Entry entry = new Entry();
+        new ClassReader(bytecode).accept(new ClassVisitor(Opcodes.ASM7) {
+            @Override
+            public void visit(final int version, final int access, final String name, final String signature,
+                    final String superName, final String[] interfaces) {
+                entry.name = name;
+                entry.isInterface = (access & Opcodes.ACC_INTERFACE) != 0;
+                entry.superName = superName;
+                entry.interfaces = interfaces == null ? new String[0] : interfaces;
+            }
+
+            @Override
+            public FieldVisitor visitField(final int access, final String name, final String descriptor,
+                    final String signature, final Object value) {
+                entry.fields.add(new Member(name, descriptor, InheritanceType.fromModifiers(access)));
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(final int access, final String name, final String descriptor,
+                    final String signature, final String[] exceptions) {
+                entry.methods.add(new Member(name, descriptor, InheritanceType.fromModifiers(access)));
+                return null;
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return entry;
+    }
+
+    /**
+     * Creates a hierarchy index from the given entries.
+     *
+     * @param entries The hierarchy information of each class, any of
+     *                which may be {@code null}
+     * @return The hierarchy index
+     */
+    static HierarchyIndex of(final Entry[] entries) {
+        final Entry[] sorted = Arrays.stream(entries)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(entry -> entry.name))
+                .toArray(Entry[]::new);
+        final int size = sorted.length;
+
+        final Map<String, Integer> stringIds = new HashMap<>();
+        final List<String> strings = new ArrayList<>();
+        final HierarchyIndex index = new HierarchyIndex(size,
+                Arrays.stream(sorted).mapToInt(entry -> entry.interfaces.length).sum(),
+                Arrays.stream(sorted).mapToInt(entry -> entry.fields.size()).sum(),
+                Arrays.stream(sorted).mapToInt(entry -> entry.methods.size()).sum());
+
+        int interfaceCount = 0;
+        int fieldCount = 0;
+        int methodCount = 0;
+        for (int i = 0; i < size; i++) {
+            final Entry entry = sorted[i];
+            index.classNames[i] = entry.name;
+            index.interfaceFlags[i] = entry.isInterface;
+            index.superNames[i] = entry.superName == null ? -1 : intern(entry.superName, stringIds, strings);
+
+            index.interfaceOffsets[i] = interfaceCount;
+            for (final String interfaceName : entry.interfaces) {
+                index.interfaces[interfaceCount++] = intern(interfaceName, stringIds, strings);
+            }
+
+            index.fieldOffsets[i] = fieldCount;
+            for (final Member field : entry.fields) {
+                index.fieldNames[fieldCount] = intern(field.name, stringIds, strings);
+                index.fieldDescriptors[fieldCount] = intern(field.descriptor, stringIds, strings);
+                index.fieldTypes[fieldCount++] = (byte) field.type.ordinal();
+            }
+
+            index.methodOffsets[i] = methodCount;
+            for (final Member method : entry.methods) {
+                index.methodNames[methodCount] = intern(method.name, stringIds, strings);
+                index.methodDescriptors[methodCount] = intern(method.descriptor, stringIds, strings);
+                index.methodTypes[methodCount++] = (byte) method.type.ordinal();
+            }
+        }
+        index.interfaceOffsets[size] = interfaceCount;
+        index.fieldOffsets[size] = fieldCount;
+        index.methodOffsets[size] = methodCount;
+        index.strings = strings.toArray(new String[0]);
+        return index;
+    }
+
+    /**
+     * Reads a hierarchy index, as written by {@link #write(DataOutputStream)}.
+     *
+     * @param buffer The buffer to read from
+     * @return The hierarchy index
+     */
+    static HierarchyIndex read(final ByteBuffer buffer) {
+        // note: each class is written with its name's length, interface flag, super name, and
+        //       three offsets - and each field and method with its name, descriptor, and type
+        final HierarchyIndex index = new HierarchyIndex(
+                JarIndexCache.readCount(buffer, 1 + 5 * Integer.BYTES),
+                JarIndexCache.readCount(buffer, Integer.BYTES),
+                JarIndexCache.readCount(buffer, 1 + 2 * Integer.BYTES),
+                JarIndexCache.readCount(buffer, 1 + 2 * Integer.BYTES)
+        );
+        index.strings = JarIndexCache.readStrings(buffer);
+        final String[] classNames = JarIndexCache.readStrings(buffer);
+        System.arraycopy(classNames, 0, index.classNames, 0, classNames.length);
+        for (int i = 0; i < index.interfaceFlags.length; i++) {
+            index.interfaceFlags[i] = buffer.get() != 0;
+        }
+        JarIndexCache.readInts(buffer, index.superNames);
+        JarIndexCache.readInts(buffer, index.interfaceOffsets);
+        JarIndexCache.readInts(buffer, index.interfaces);
+        JarIndexCache.readInts(buffer, index.fieldOffsets);
+        JarIndexCache.readInts(buffer, index.fieldNames);
+        JarIndexCache.readInts(buffer, index.fieldDescriptors);
+        buffer.get(index.fieldTypes);
+        JarIndexCache.readInts(buffer, index.methodOffsets);
+        JarIndexCache.readInts(buffer, index.methodNames);
+        JarIndexCache.readInts(buffer, index.methodDescriptors);
+        buffer.get(index.methodTypes);
+        return index;
+    }
+
+    private static int intern(final String string, final Map<String, Integer> ids, final List<String> strings) {
+        return ids.computeIfAbsent(string, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+    }
+
+    // The table of names (and descriptors) referred to by the index
+    private String[] strings;
+
+    // The classes, sorted by name
+    private final String[] classNames;
+    private final boolean[] interfaceFlags;
+    private final int[] superNames;
+
+    // The interfaces, fields and methods of class i lie between offsets i and i + 1
+    private final int[] interfaceOffsets;
+    private final int[] interfaces;
+    private final int[] fieldOffsets;
+    private final int[] fieldNames;
+    private final int[] fieldDescriptors;
+    private final byte[] fieldTypes;
+    private final int[] methodOffsets;
+    private final int[] methodNames;
+    private final int[] methodDescriptors;
+    private final byte[] methodTypes;
+
+    private HierarchyIndex(final int classes, final int interfaces, final int fields, final int methods) {
+        this.classNames = new String[classes];
+        this.interfaceFlags = new boolean[classes];
+        this.superNames = new int[classes];
+        this.interfaceOffsets = new int[classes + 1];
+        this.interfaces = new int[interfaces];
+        this.fieldOffsets = new int[classes + 1];
+        this.fieldNames = new int[fields];
+        this.fieldDescriptors = new int[fields];
+        this.fieldTypes = new byte[fields];
+        this.methodOffsets = new int[classes + 1];
+        this.methodNames = new int[methods];
+        this.methodDescriptors = new int[methods];
+        this.methodTypes = new byte[methods];
+    }
+
+    /**
+     * Writes the hierarchy index, to be read by {@link #read(ByteBuffer)}.
+     *
+     * @param out The stream to write to
+     * @throws IOException Should the index fail to write
+     */
+    void write(final DataOutputStream out) throws IOException {
+        out.writeInt(this.classNames.length);
+        out.writeInt(this.interfaces.length);
+        out.writeInt(this.fieldNames.length);
+        out.writeInt(this.methodNames.length);
+        JarIndexCache.writeStrings(out, this.strings);
+        JarIndexCache.writeStrings(out, this.classNames);
+        for (final boolean interfaceFlag : this.interfaceFlags) {
+            out.writeBoolean(interfaceFlag);
+        }
+        JarIndexCache.writeInts(out, this.superNames);
+        JarIndexCache.writeInts(out, this.interfaceOffsets);
+        JarIndexCache.writeInts(out, this.interfaces);
+        JarIndexCache.writeInts(out, this.fieldOffsets);
+        JarIndexCache.writeInts(out, this.fieldNames);
+        JarIndexCache.writeInts(out, this.fieldDescriptors);
+        out.write(this.fieldTypes);
+        JarIndexCache.writeInts(out, this.methodOffsets);
+        JarIndexCache.writeInts(out, this.methodNames);
+        JarIndexCache.writeInts(out, this.methodDescriptors);
+        out.write(this.methodTypes);
+    }
+
+    @Override
+    public Optional<ClassInfo> provide(final String klass) {
+        final int index = Arrays.binarySearch(this.classNames, klass);
+        if (index < 0) return Optional.empty();
+
+        final List<String> interfaces = new ArrayList<>();
+        for (int i = this.interfaceOffsets[index]; i < this.interfaceOffsets[index + 1]; i++) {
+            interfaces.add(this.strings[this.interfaces[i]]);
+        }
+
+        final Map<FieldSignature, InheritanceType> fields = new HashMap<>();
+        final Map<String, InheritanceType> fieldsByName = new HashMap<>();
+        for (int i = this.fieldOffsets[index]; i < this.fieldOffsets[index + 1]; i++) {
+            final String name = this.strings[this.fieldNames[i]];
+            final InheritanceType type = INHERITANCE_TYPES[this.fieldTypes[i]];
+            fields.put(FieldSignature.of(name, this.strings[this.fieldDescriptors[i]]), type);
+            fieldsByName.put(name, type);
+        }
+
+        final Map<MethodSignature, InheritanceType> methods = new HashMap<>();
+        for (int i = this.methodOffsets[index]; i < this.methodOffsets[index + 1]; i++) {
+            methods.put(
+                    MethodSignature.of(this.strings[this.methodNames[i]], this.strings[this.methodDescriptors[i]]),
+                    INHERITANCE_TYPES[this.methodTypes[i]]
+            );
+        }
+
+        final int superName = this.superNames[index];
+        return Optional.of(new ClassInfo.Impl(
+                klass,
+                this.interfaceFlags[index],
+                superName == -1 ? null : this.strings[superName],
+                Collections.unmodifiableList(interfaces),
+                fields,
+                fieldsByName,
+                methods
+        ));
+    }
+
+    /**
+     * The hierarchy information of a single class, as read from its
+     * bytecode.
+     */
+    static final class Entry {
+
+        private String name;
+        private boolean isInterface;
+        private String superName;
+        private String[] interfaces;
+        private final List<Member> fields = new ArrayList<>();
+        private final List<Member> methods = new ArrayList<>();
+
+    }
+
+    private static final class Member {
+
+        private final String name;
+        private final String descriptor;
+        private final InheritanceType type;
+
+        Member(final String name, final String descriptor, final InheritanceType type) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.type = type;
+        }
+
+    }
+
+}
@@ -7,56 +7,214 @@
 
 package me.jamiemansfield.symphony.jar;
 
+import me.jamiemansfield.symphony.decompiler.AbstractDecompiler;
 import me.jamiemansfield.symphony.decompiler.Decompiler;
 import me.jamiemansfield.symphony.decompiler.WrappedBytecode;
-import org.cadixdev.bombe.analysis.CachingInheritanceProvider;
 import org.cadixdev.bombe.analysis.InheritanceProvider;
 import org.cadixdev.bombe.asm.analysis.ClassProviderInheritanceProvider;
 import org.cadixdev.bombe.asm.jar.ClassProvider;
-import org.cadixdev.bombe.asm.jar.JarEntryRemappingTransformer;
-import org.cadixdev.bombe.asm.jar.JarFileClassProvider;
 import org.cadixdev.bombe.jar.AbstractJarEntry;
-import org.cadixdev.bombe.jar.JarClassEntry;
-import org.cadixdev.bombe.jar.Jars;
 import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.lorenz.model.FieldMapping;
+import org.cadixdev.lorenz.model.InnerClassMapping;
+import org.cadixdev.lorenz.model.Mapping;
+import org.cadixdev.lorenz.model.MethodMapping;
+import org.cadixdev.lorenz.model.MethodParameterMapping;
 import org.cadixdev.lorenz.model.TopLevelClassMapping;
-import org.cadixdev.survey.remapper.SurveyRemapper;
-import org.objectweb.asm.commons.Remapper;
 
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.jar.JarFile;
-import java.util.jar.JarOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 /**
- * A wrapper around {@link JarFile}.
+ * A wrapper around a jar file, backed by a {@link MappedJarFile}.
  *
  * @author Jamie Mansfield
  * @since 0.1.0
  */
 public class Jar implements Closeable {
 
+    private static final long REMAPPED_CLASS_CACHE_SIZE = 64 * 1024 * 1024;
+    private static final long DECOMPILE_RESULT_CACHE_SIZE = 16 * 1024 * 1024;
+
     // Mappings Related
-    private final MappingSet mappings = MappingSet.create();
+    private final MappingSet mappings = MappingSet.create(
+            new TrackingModelFactory(this::beforeMappingChanged, this::onMappingChanged)
+    );
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile Snapshot snapshot;
+    private final ClassNameIndex names = new ClassNameIndex();
+    private final Set<String> changedClasses = new HashSet<>();
+    private final Set<String> renamedClasses = new HashSet<>();
+    private boolean allClassesChanged;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
 
     // Jar related
-    private final JarFile jar;
-    private final JarFileClassProvider obfProvider;
-    private final DeobfuscatingClassProvider deobfProvider;
+    private final MappedJarFile jar;
     private final InheritanceProvider inheritanceProvider;
-    private final Remapper remapper;
+    private final RemappedClassCache remappedClassCache = new RemappedClassCache(REMAPPED_CLASS_CACHE_SIZE);
+    private final DecompileResultCache decompileResultCache = new DecompileResultCache(DECOMPILE_RESULT_CACHE_SIZE);
+    private volatile ExportManifest lastExport;
+
+    // Decompile related
+    private final Map<String, List<DecompileAttempt>> decompileAttempts = new ConcurrentHashMap<>();
+    // The decompiles that ran out of time, by class and then decompiler
+    private final Map<String, Map<String, TimedOutDecompile>> timedOutDecompiles = new ConcurrentHashMap<>();
+
+    // Index related
+    private final Map<String, List<String>> innerClasses = new HashMap<>();
+    private final CompletableFuture<JarIndex> index;
+
+    public Jar(final Path path) throws IOException {
+        this.jar = new MappedJarFile(path);
+        // note: the central directory is read, and the inner classes indexed, on every open - rather
+        //       than cached with the index, as both take tens of milliseconds even for jars of tens of
+        //       thousands of classes, and the cached index is keyed by the central directory anyway
+        this.jar.classes().forEach(klass -> {
+            final int index = klass.indexOf('$', klass.lastIndexOf('/') + 1);
+            if (index == -1) return;
+            this.innerClasses.computeIfAbsent(klass.substring(0, index), key -> new ArrayList<>()).add(klass);
+        });
+        this.index = CompletableFuture.supplyAsync(() -> JarIndex.load(this.jar, JarIndexCache.INSTANCE));
+        this.index.exceptionally(ex -> {
+            ex.printStackTrace();
+            return null;
+        });
+
+        // Until the hierarchy index has been built, classes are read as they're needed
+        final InheritanceProvider lazyProvider = new ClassProviderInheritanceProvider(this.jar);
+        this.inheritanceProvider = new ConcurrentCachingInheritanceProvider(klass -> {
+            final JarIndex index = this.getIndex();
+            return index != null ? index.getHierarchy().provide(klass) : lazyProvider.provide(klass);
+        });
+    }
 
-    public Jar(final JarFile jar) {
-        this.jar = jar;
-        this.obfProvider = new JarFileClassProvider(this.jar);
-        this.inheritanceProvider =
-                new CachingInheritanceProvider(new ClassProviderInheritanceProvider(this.obfProvider));
-        this.remapper = new SurveyRemapper(this.mappings, this.inheritanceProvider);
-        this.deobfProvider = new DeobfuscatingClassProvider(this.obfProvider, this.mappings, this.remapper);
+    private void beforeMappingChanged() {
+        // note: earlier snapshots were materialised before the changes that succeeded them
+        final Snapshot snapshot = this.snapshot;
+        if (snapshot != null) snapshot.remapper.materialise();
+    }
+
+    private void onMappingChanged(final Mapping<?, ?> mapping) {
+        // Only changes to the jar's own mappings are tracked
+        if (mapping.getMappings() != this.mappings) return;
+        this.trackChange(mapping, this.generation.incrementAndGet());
+        this.changeListeners.forEach(Runnable::run);
+    }
+
+    private void trackChange(final Mapping<?, ?> mapping, final int generation) {
+        // Only class renames can be tracked through the reference index
+        if (!(mapping instanceof ClassMapping)) {
+            this.invalidateAll(generation);
+            return;
+        }
+
+        // The renamed class, and any classes nested within it, have changed
+        final ClassMapping<?, ?> klassMapping = (ClassMapping<?, ?>) mapping;
+        final String klass = klassMapping.getFullObfuscatedName();
+        final int nestIndex = klass.indexOf('$', klass.lastIndexOf('/') + 1);
+        final List<String> renamed = new ArrayList<>();
+        renamed.add(klass);
+        for (final String innerKlass : this.getInnerClasses(nestIndex == -1 ? klass : klass.substring(0, nestIndex))) {
+            if (innerKlass.startsWith(klass + '$')) renamed.add(innerKlass);
+        }
+
+        this.renamedClasses.addAll(renamed);
+
+        // Re-index their names, outer classes first
+        renamed.sort(Comparator.comparingInt(String::length));
+        this.names.put(klass, klassMapping.getFullDeobfuscatedName(), generation);
+        for (final String innerKlass : renamed.subList(1, renamed.size())) {
+            this.names.put(innerKlass, this.mappings.getClassMapping(innerKlass)
+                    .map(ClassMapping::getFullDeobfuscatedName)
+                    .orElseGet(() -> {
+                        final int index = innerKlass.lastIndexOf('$');
+                        return this.names.getDeobfuscatedName(innerKlass.substring(0, index)) + innerKlass.substring(index);
+                    }), generation);
+        }
+
+        final JarIndex index = this.getIndex();
+        if (index == null) {
+            this.invalidateAll(generation);
+            return;
+        }
+        final ReferenceIndex references = index.getReferences();
+
+        // As have the classes that refer to them
+        final Set<String> affected = new HashSet<>(renamed);
+        for (final String renamedKlass : renamed) {
+            Collections.addAll(affected, references.getReferrers(renamedKlass));
+        }
+
+        for (final String affectedKlass : affected) {
+            this.remappedClassCache.invalidate(affectedKlass, generation);
+            // note: decompiles are of top-level classes, including those nested within
+            final int affectedNestIndex = affectedKlass.indexOf('$', affectedKlass.lastIndexOf('/') + 1);
+            this.timedOutDecompiles.remove(affectedNestIndex == -1 ? affectedKlass : affectedKlass.substring(0, affectedNestIndex));
+        }
+        this.changedClasses.addAll(affected);
+    }
+
+    private void invalidateAll(final int generation) {
+        this.allClassesChanged = true;
+        this.remappedClassCache.invalidateAll(generation);
+        this.decompileResultCache.clear();
+        this.timedOutDecompiles.clear();
+    }
+
+    /**
+     * Waits for the jar's indices, which are built in the background
+     * once the jar has been opened, to be ready.
+     */
+    public void awaitIndex() {
+        try {
+            this.index.join();
+        }
+        catch (final CompletionException | CancellationException ignored) {
+            // note: the failure has already been reported, and the jar works without the indices
+        }
+    }
+
+    /**
+     * Gets the jar's indices, should they have been built - a failure to
+     * build them being treated the same as them not having been built
+     * yet.
+     *
+     * @return The indices, or {@code null}
+     */
+    private JarIndex getIndex() {
+        try {
+            return this.index.getNow(null);
+        }
+        catch (final CompletionException | CancellationException ignored) {
+            return null;
+        }
     }
 
     /**
@@ -69,17 +227,136 @@ public class Jar implements Closeable {
     }
 
     /**
-     * @see Jars#walk(JarFile)
+     * Gets the generation of the mappings, which is incremented every
+     * time the mappings are changed.
+     *
+     * @return The mappings generation
+     */
+    public int getGeneration() {
+        return this.generation.get();
+    }
+
+    /**
+     * Adds a listener, to be notified whenever the mappings change - on
+     * the thread that changed them.
+     * <p>
+     * Listeners are notified of every change, however small, so should
+     * defer any real work - collecting the changes through
+     * {@link #pollChangedClasses()}.
+     *
+     * @param listener The listener
+     */
+    public void addChangeListener(final Runnable listener) {
+        this.changeListeners.add(listener);
+    }
+
+    /**
+     * Gets the classes affected by changes to the mappings, since this
+     * was last called - clearing them.
+     * <p>
+     * This must be called from the thread that changes the mappings (the
+     * JavaFX application thread).
+     *
+     * @return The changed classes
+     */
+    public ChangedClasses pollChangedClasses() {
+        final ChangedClasses changes =
+                ChangedClasses.of(this.allClassesChanged, this.changedClasses, this.renamedClasses);
+        this.allClassesChanged = false;
+        this.changedClasses.clear();
+        this.renamedClasses.clear();
+        return changes;
+    }
+
+    /**
+     * Establishes whether the given top-level class, or any of its inner
+     * classes, are among the given changes.
+     *
+     * @param changes The changed classes
+     * @param klass The obfuscated name of the top-level class
+     * @return {@code true} if the class has changed
+     */
+    public boolean hasChanged(final ChangedClasses changes, final String klass) {
+        if (changes.contains(klass)) return true;
+        for (final String innerKlass : this.getInnerClasses(klass)) {
+            if (changes.contains(innerKlass)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the cache of remapped bytecode, shared by all snapshots.
+     *
+     * @return The remapped class cache
+     */
+    public RemappedClassCache getRemappedClassCache() {
+        return this.remappedClassCache;
+    }
+
+    /**
+     * Gets a snapshot of the jar's current mappings, against which any
+     * number of decompiles and exports may run concurrently.
+     * <p>
+     * The snapshot is only re-created once the mappings have changed, and
+     * this must be called from the thread that changes the mappings (the
+     * JavaFX application thread). The mappings are only copied once the
+     * snapshot first remaps a class, on the thread doing so - unless they
+     * change before then.
+     *
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        final int generation = this.generation.get();
+        Snapshot snapshot = this.snapshot;
+        if (snapshot == null || snapshot.generation != generation) {
+            this.snapshot = snapshot = new Snapshot(generation);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @see MappedJarFile#entries()
      */
     public Stream<AbstractJarEntry> entries() {
-        return Jars.walk(this.jar);
+        return this.jar.entries();
+    }
+
+    /**
+     * @see MappedJarFile#classes()
+     */
+    public Stream<String> classes() {
+        return this.jar.classes();
+    }
+
+    /**
+     * Gets the obfuscated names of all the top-level classes within the
+     * jar.
+     *
+     * @return The top-level classes
+     */
+    public Stream<String> topLevelClasses() {
+        return this.jar.classes()
+                .filter(klass -> klass.indexOf('$', klass.lastIndexOf('/') + 1) == -1);
     }
 
     /**
-     * @see JarFile#getName()
+     * Gets the de-obfuscated name of the given class, against the current
+     * mappings - without creating a mapping for it.
+     *
+     * @param klass The obfuscated name of the class
+     * @return The de-obfuscated name
+     */
+    public String getDeobfuscatedName(final String klass) {
+        return this.names.getDeobfuscatedName(klass);
+    }
+
+    /**
+     * Gets the name (path) of the jar.
+     *
+     * @return The name
      */
     public String getName() {
-        return this.jar.getName();
+        return this.jar.getPath().toString();
     }
 
     /**
@@ -88,61 +365,62 @@ public class Jar implements Closeable {
      * @return The obfuscated class provider
      */
     public ClassProvider obfProvider() {
-        return this.obfProvider;
+        return this.jar;
     }
 
     /**
-     * Gets the {@link ClassProvider} for querying de-obfuscated bytecode.
+     * Gets the {@link ClassProvider} for querying de-obfuscated bytecode,
+     * against the current mappings.
      *
      * @return The de-obfuscated class provider
+     * @see #snapshot()
      */
     public ClassProvider deobfProvider() {
-        return this.deobfProvider;
+        return this.snapshot().deobfProvider;
+    }
+
+    /**
+     * Gets the obfuscated names of all the inner (and anonymous) classes
+     * nested within the given top-level class, from an index built when
+     * the jar was opened.
+     * <p>
+     * The index is keyed by obfuscated names, which are unaffected by
+     * changes to the mappings, so remains current through renames.
+     *
+     * @param klass The obfuscated name of the top-level class
+     * @return The obfuscated names of the inner classes
+     */
+    public List<String> getInnerClasses(final String klass) {
+        return Collections.unmodifiableList(this.innerClasses.getOrDefault(klass, Collections.emptyList()));
+    }
+
+    /**
+     * Gets the attempts made at decompiling the given top-level class,
+     * the last time it was decompiled through a chain of decompilers.
+     *
+     * @param klass The obfuscated name of the top-level class
+     * @return The attempts, or an empty list if not yet decompiled
+     */
+    public List<DecompileAttempt> getDecompileAttempts(final String klass) {
+        return this.decompileAttempts.getOrDefault(klass, Collections.emptyList());
     }
 
     public boolean hasClass(final String klass) {
-        return this.jar.getEntry(klass + ".class") != null;
+        return this.jar.hasClass(klass);
     }
 
+    /**
+     * @see Snapshot#exportRemapped(File)
+     */
     public void exportRemapped(final File exportPath) {
-        synchronized (this.jar) {
-            try (final JarOutputStream jos = new JarOutputStream(new FileOutputStream(exportPath))) {
-                Jars.transform(this.jar, jos, new JarEntryRemappingTransformer(this.remapper));
-            }
-            catch (final IOException ex) {
-                ex.printStackTrace();
-            }
-        }
+        this.snapshot().exportRemapped(exportPath);
     }
 
-    public synchronized String decompile(final Decompiler decompiler, final TopLevelClassMapping klass) {
-        // Get the top-level class
-        final byte[] deobfBytes = this.deobfProvider.get(klass.getFullObfuscatedName());
-        if (deobfBytes == null) return "Well... this is embarrassing.";
-        final WrappedBytecode rootKlass = new WrappedBytecode(
-                klass.getFullDeobfuscatedName() + ".class",
-                deobfBytes
-        );
-
-        // Get the inner classes
-        final WrappedBytecode[] innerKlasses = this.entries()
-                .filter(JarClassEntry.class::isInstance).map(JarClassEntry.class::cast)
-                .filter(entry -> entry.getName().startsWith(klass.getFullObfuscatedName() + '$'))
-                .map(entry -> {
-                    final ClassMapping<?, ?> innerKlass = this.mappings.getOrCreateClassMapping(
-                            entry.getName().substring(0, entry.getName().length() - ".class".length())
-                    );
-                    final byte[] innerDeobfBytes = this.deobfProvider.get(innerKlass.getFullObfuscatedName());
-                    if (innerDeobfBytes == null) return null;
-                    return new WrappedBytecode(
-                            innerKlass.getFullDeobfuscatedName() + ".class",
-                            innerDeobfBytes
-                    );
-                })
-                .toArray(WrappedBytecode[]::new);
-
-        // Decompile
-        return decompiler.decompile(this.deobfProvider, rootKlass, innerKlasses);
+    /**
+     * @see Snapshot#decompile(Decompiler, String)
+     */
+    public String decompile(final Decompiler decompiler, final String klass) {
+        return this.snapshot().decompile(decompiler, klass);
     }
 
     @Override
@@ -150,4 +428,318 @@ public class Jar implements Closeable {
         this.jar.close();
     }
 
+    /**
+     * Creates a deep copy of the given mappings, in a single pass.
+     * <p>
+     * Lorenz's mappings refer back to the set they belong to, so can't be
+     * shared between sets - but copying them directly avoids reversing
+     * them twice, which re-maps the descriptor of every member each time.
+     */
+    private static MappingSet copy(final MappingSet mappings) {
+        final MappingSet copy = MappingSet.create();
+        for (final TopLevelClassMapping klass : mappings.getTopLevelClassMappings()) {
+            copyMembers(klass, copy.createTopLevelClassMapping(klass.getObfuscatedName(), klass.getDeobfuscatedName()));
+        }
+        return copy;
+    }
+
+    private static void copyMembers(final ClassMapping<?, ?> klass, final ClassMapping<?, ?> copy) {
+        for (final FieldMapping field : klass.getFieldMappings()) {
+            copy.createFieldMapping(field.getSignature(), field.getDeobfuscatedName());
+        }
+        for (final MethodMapping method : klass.getMethodMappings()) {
+            final MethodMapping methodCopy = copy.createMethodMapping(method.getSignature(), method.getDeobfuscatedName());
+            for (final MethodParameterMapping param : method.getParameterMappings()) {
+                methodCopy.createParameterMapping(param.getIndex(), param.getDeobfuscatedName());
+            }
+        }
+        for (final InnerClassMapping innerKlass : klass.getInnerClassMappings()) {
+            copyMembers(innerKlass, copy.createInnerClassMapping(innerKlass.getObfuscatedName(), innerKlass.getDeobfuscatedName()));
+        }
+    }
+
+    /**
+     * A snapshot of the jar's mappings, as of a generation, and the
+     * remapper and class provider built upon them - all of which are safe
+     * to use from multiple threads at once.
+     * <p>
+     * The snapshot's copy of the mappings is unaffected by later changes
+     * to the jar's mappings, though remapping adds to it - so remapping
+     * with the snapshot is serialised.
+     */
+    public final class Snapshot {
+
+        private final int generation;
+        private final ClassNameIndex names;
+        private final SnapshotRemapper remapper;
+        private final DeobfuscatingClassProvider deobfProvider;
+
+        private Snapshot(final int generation) {
+            this.generation = generation;
+            this.names = Jar.this.names.at(generation);
+            this.remapper = new SnapshotRemapper(() -> copy(Jar.this.mappings), Jar.this.inheritanceProvider);
+            this.deobfProvider = new DeobfuscatingClassProvider(
+                    Jar.this.jar, this.names, this.remapper, Jar.this.remappedClassCache, generation
+            );
+        }
+
+        /**
+         * Gets the generation of the mappings this snapshot was taken at.
+         *
+         * @return The mappings generation
+         */
+        public int getGeneration() {
+            return this.generation;
+        }
+
+        public void exportRemapped(final File exportPath) {
+            this.exportRemapped(exportPath, ExportListener.NONE);
+        }
+
+        /**
+         * Exports a remapped copy of the jar, remapping its entries in
+         * parallel.
+         * <p>
+         * Entries unaffected by the changes to the mappings since the
+         * previous export are copied from it, rather than remapped again.
+         *
+         * @param exportPath The path to export to
+         * @param listener The listener for the export's progress
+         */
+        public void exportRemapped(final File exportPath, final ExportListener listener) {
+            this.exportRemapped(exportPath, listener, null, Runtime.getRuntime().availableProcessors());
+        }
+
+        /**
+         * Exports a remapped copy of the jar, remapping its entries in
+         * parallel on the given workers - which may be shared with other
+         * work.
+         * <p>
+         * Entries unaffected by the changes to the mappings since the
+         * previous export are copied from it, rather than remapped again.
+         *
+         * @param exportPath The path to export to
+         * @param listener The listener for the export's progress
+         * @param workers The workers to remap the entries with, or
+         *                {@code null} for a pool of the export's own
+         * @param parallelism The number of workers
+         * @throws UncheckedIOException Should the jar fail to be exported
+         */
+        public void exportRemapped(final File exportPath, final ExportListener listener, final Executor workers,
+                final int parallelism) {
+            try {
+                final RemappedClassCache cache = Jar.this.remappedClassCache;
+                Jar.this.lastExport = new RemappedJarExporter(
+                        Jar.this.jar, this.remapper, this.generation, cache::getInvalidation,
+                        workers, parallelism
+                ).export(exportPath.toPath(), Jar.this.lastExport, listener);
+            }
+            catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        /**
+         * Decompiles the given top-level class, along with its inner
+         * classes.
+         * <p>
+         * Sources are cached in memory until the class changes, and on
+         * disk against the remapped bytecode of the classes and the
+         * decompiler - so a class is only decompiled once in any given
+         * form. Concurrent requests for the same class share a single
+         * decompile.
+         *
+         * @param decompiler The decompiler to use
+         * @param klass The obfuscated name of the top-level class
+         * @return The re-constructed source code
+         */
+        public String decompile(final Decompiler decompiler, final String klass) {
+            return this.decompile(decompiler, klass, () -> {});
+        }
+
+        private String decompile(final Decompiler decompiler, final String klass, final Runnable onStart) {
+            if (!decompiler.isCacheable()) return this.decompileUncached(decompiler, klass, onStart);
+
+            return Jar.this.decompileResultCache.get(klass, decompiler.getName(), this.generation, this.getLastChanged(klass),
+                    () -> this.decompileUncached(decompiler, klass, onStart));
+        }
+
+        /**
+         * Gets the generation of the mappings at which the decompiled
+         * form of the given top-level class last changed.
+         */
+        private int getLastChanged(final String klass) {
+            final RemappedClassCache cache = Jar.this.remappedClassCache;
+            int lastChanged = cache.getInvalidation(klass);
+            for (final String innerKlass : Jar.this.getInnerClasses(klass)) {
+                lastChanged = Math.max(lastChanged, cache.getInvalidation(innerKlass));
+            }
+            return lastChanged;
+        }
+
+        /**
+         * Decompiles the given top-level class, trying each of the given
+         * decompilers in turn - until one succeeds within the time limit.
+         * Decompilers that run out of time are interrupted, and aren't
+         * tried on the class again - unless given longer, or the class
+         * has since changed.
+         * <p>
+         * Each decompiler's time limit starts once it begins decompiling -
+         * not while it waits for a thread, for the same decompile already
+         * running elsewhere, or for the source cache. That wait is given a
+         * limit of its own, of the same length, as either may be held by a
+         * decompiler that was abandoned - should it run out, the decompiler
+         * is recorded as having timed out, and the next is tried.
+         * <p>
+         * The attempts made are recorded against the class.
+         *
+         * @param decompilers The decompilers to try, in order
+         * @param klass The obfuscated name of the top-level class
+         * @param timeout The time limit of each decompiler
+         * @param unit The unit of the time limit
+         * @param executor The executor to run the decompilers with, which
+         *                 should be bounded - as decompilers that don't
+         *                 stop once interrupted are abandoned, and continue
+         *                 to occupy its threads
+         * @return The result
+         * @throws CancellationException Should the current thread be
+         *         interrupted
+         */
+        public DecompileResult decompile(final List<Decompiler> decompilers, final String klass,
+                final long timeout, final TimeUnit unit, final Executor executor) {
+            final long timeoutNanos = unit.toNanos(timeout);
+            final List<DecompileAttempt> attempts = new ArrayList<>();
+            String source = null;
+            for (final Decompiler decompiler : decompilers) {
+                final Map<String, TimedOutDecompile> timedOut = Jar.this.timedOutDecompiles.get(klass);
+                final TimedOutDecompile previous = timedOut != null ? timedOut.get(decompiler.getName()) : null;
+                // note: the class may have changed since, should it have been renamed while the
+                //       decompile was running
+                if (previous != null && timeoutNanos <= previous.timeout
+                        && this.getLastChanged(klass) <= Math.min(previous.generation, this.generation)) {
+                    attempts.add(new DecompileAttempt(decompiler.getName(), DecompileAttempt.Outcome.SKIPPED, 0));
+                    continue;
+                }
+
+                final long submitted = System.nanoTime();
+                final AtomicLong started = new AtomicLong();
+                // Released once the decompiler has begun, or the attempt has finished without it
+                final CountDownLatch ready = new CountDownLatch(1);
+                final FutureTask<String> attempt = new FutureTask<>(() -> {
+                    try {
+                        return this.decompile(decompiler, klass, () -> {
+                            started.set(System.nanoTime());
+                            ready.countDown();
+                        });
+                    }
+                    finally {
+                        ready.countDown();
+                    }
+                });
+                executor.execute(attempt);
+                try {
+                    if (!ready.await(timeout, unit)) {
+                        // note: the decompiler itself wasn't at fault, so may be tried again
+                        attempt.cancel(true);
+                        attempts.add(new DecompileAttempt(decompiler.getName(), DecompileAttempt.Outcome.TIMED_OUT,
+                                elapsed(submitted, started)));
+                        continue;
+                    }
+                    source = attempt.get(timeout, unit);
+                    // note: some decompilers produce nothing, rather than fail
+                    attempts.add(new DecompileAttempt(decompiler.getName(),
+                            source != null ? DecompileAttempt.Outcome.SUCCEEDED : DecompileAttempt.Outcome.FAILED,
+                            elapsed(submitted, started)));
+                    if (source != null) break;
+                }
+                catch (final TimeoutException ex) {
+                    attempt.cancel(true);
+                    Jar.this.timedOutDecompiles.computeIfAbsent(klass, key -> new ConcurrentHashMap<>())
+                            .put(decompiler.getName(), new TimedOutDecompile(timeoutNanos, this.generation));
+                    attempts.add(new DecompileAttempt(decompiler.getName(), DecompileAttempt.Outcome.TIMED_OUT,
+                            elapsed(submitted, started)));
+                }
+                catch (final ExecutionException ex) {
+                    ex.getCause().printStackTrace();
+                    attempts.add(new DecompileAttempt(decompiler.getName(), DecompileAttempt.Outcome.FAILED,
+                            elapsed(submitted, started)));
+                }
+                catch (final InterruptedException ex) {
+                    attempt.cancel(true);
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Decompile was cancelled");
+                }
+            }
+
+            Jar.this.decompileAttempts.put(klass, Collections.unmodifiableList(attempts));
+            return new DecompileResult(source != null ? source : "// Every decompiler failed to decompile this class.", attempts);
+        }
+
+        /**
+         * Gets the time taken by a decompiler, from when it began - or,
+         * should it not have, from when it was submitted.
+         */
+        private long elapsed(final long submitted, final AtomicLong started) {
+            final long start = started.get();
+            return System.nanoTime() - (start != 0 ? start : submitted);
+        }
+
+        private String decompileUncached(final Decompiler decompiler, final String klass, final Runnable onStart) {
+            // Get the top-level class
+            final byte[] deobfBytes = this.deobfProvider.get(klass);
+            if (deobfBytes == null) return "Well... this is embarrassing.";
+            final WrappedBytecode rootKlass = new WrappedBytecode(
+                    this.remapper.map(klass) + ".class",
+                    deobfBytes
+            );
+
+            // Get the inner classes
+            final WrappedBytecode[] innerKlasses = Jar.this.getInnerClasses(klass).stream()
+                    .map(innerKlass -> {
+                        final byte[] innerDeobfBytes = this.deobfProvider.get(innerKlass);
+                        if (innerDeobfBytes == null) return null;
+                        return new WrappedBytecode(
+                                this.remapper.map(innerKlass) + ".class",
+                                innerDeobfBytes
+                        );
+                    })
+                    .filter(Objects::nonNull)
+                    .toArray(WrappedBytecode[]::new);
+
+            // Use the cached source, should the class have been decompiled before
+            AbstractDecompiler.checkInterrupted();
+            if (!decompiler.isCacheable()) {
+                onStart.run();
+                return decompiler.decompile(this.deobfProvider, rootKlass, innerKlasses);
+            }
+            final String key = DecompiledSourceCache.key(decompiler, rootKlass, innerKlasses);
+            final String cached = DecompiledSourceCache.INSTANCE.load(key);
+            if (cached != null) return cached;
+
+            // Decompile
+            onStart.run();
+            final String source = decompiler.decompile(this.deobfProvider, rootKlass, innerKlasses);
+            if (source != null) DecompiledSourceCache.INSTANCE.save(key, source);
+            return source;
+        }
+
+    }
+
+    /**
+     * A decompile that ran out of time.
+     */
+    private static final class TimedOutDecompile {
+
+        // The time limit (in nanoseconds) it was given
+        private final long timeout;
+        // The generation of the mappings it was of
+        private final int generation;
+
+        TimedOutDecompile(final long timeout, final int generation) {
+            this.timeout = timeout;
+            this.generation = generation;
+        }
+
+    }
+
 }
@@ -0,0 +1,144 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+
+/**
+ * The indices built from the bytecode of every class within a jar, in
+ * a single parallel pass over the jar.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+final class JarIndex {
+
+    /**
+     * Loads the indices for the given jar from the cache, should it have
+     * been indexed before - otherwise building, and caching, them.
+     *
+     * @param jar The jar
+     * @param cache The index cache
+     * @return The jar's indices
+     */
+    static JarIndex load(final MappedJarFile jar, final JarIndexCache cache) {
+        final JarIndex cached = cache.load(jar);
+        if (cached != null) return cached;
+
+        final JarIndex index = build(jar);
+        cache.save(jar, index);
+        return index;
+    }
+
+    /**
+     * Reads the indices, as written by {@link #write(DataOutputStream)}.
+     *
+     * @param buffer The buffer to read from
+     * @return The jar's indices
+     */
+    static JarIndex read(final ByteBuffer buffer) {
+        final ReferenceIndex references = ReferenceIndex.read(buffer);
+        return new JarIndex(references, HierarchyIndex.read(buffer));
+    }
+
+    /**
+     * Builds the indices for the given jar, reading its classes in
+     * parallel.
+     *
+     * @param jar The jar
+     * @return The jar's indices
+     */
+    static JarIndex build(final MappedJarFile jar) {
+        final String[] classes = jar.classes().toArray(String[]::new);
+        final String[][] references = new String[classes.length][];
+        final HierarchyIndex.Entry[] hierarchy = new HierarchyIndex.Entry[classes.length];
+        final boolean[] unscanned = new boolean[classes.length];
+
+        IntStream.range(0, classes.length).parallel().forEach(i -> {
+            final String klass = classes[i];
+            // note: obfuscated jars often contain entries that can't be read, or aren't
+            //       really classes - these are left out of the indices, rather than
+            //       failing the indexing of the whole jar
+            final byte[] bytecode;
+            try {
+                bytecode = jar.get(klass);
+            }
+            catch (final RuntimeException ignored) {
+                unscanned[i] = true;
+                return;
+            }
+            if (bytecode == null) return;
+
+            try {
+                references[i] = ReferenceIndex.scan(bytecode).stream()
+                        .filter(reference -> !reference.equals(klass))
+                        .filter(jar::hasClass)
+                        .toArray(String[]::new);
+            }
+            catch (final RuntimeException ignored) {
+                // Classes whose references can't be read are assumed to refer to everything
+                unscanned[i] = true;
+            }
+            try {
+                hierarchy[i] = HierarchyIndex.read(bytecode);
+            }
+            catch (final RuntimeException ignored) {
+            }
+        });
+
+        final String[] unscannedClasses = IntStream.range(0, classes.length)
+                .filter(i -> unscanned[i])
+                .mapToObj(i -> classes[i])
+                .toArray(String[]::new);
+        return new JarIndex(
+                ReferenceIndex.of(classes, references, unscannedClasses),
+                HierarchyIndex.of(hierarchy)
+        );
+    }
+
+    private final ReferenceIndex references;
+    private final HierarchyIndex hierarchy;
+
+    private JarIndex(final ReferenceIndex references, final HierarchyIndex hierarchy) {
+        this.references = references;
+        this.hierarchy = hierarchy;
+    }
+
+    /**
+     * Writes the indices, to be read by {@link #read(ByteBuffer)}.
+     *
+     * @param out The stream to write to
+     * @throws IOException Should the indices fail to write
+     */
+    void write(final DataOutputStream out) throws IOException {
+        this.references.write(out);
+        this.hierarchy.write(out);
+    }
+
+    /**
+     * Gets the index of the classes each class refers to.
+     *
+     * @return The reference index
+     */
+    ReferenceIndex getReferences() {
+        return this.references;
+    }
+
+    /**
+     * Gets the index of the hierarchy of each class.
+     *
+     * @return The hierarchy index
+     */
+    HierarchyIndex getHierarchy() {
+        return this.hierarchy;
+    }
+
+}
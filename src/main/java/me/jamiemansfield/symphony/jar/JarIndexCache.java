@@ -0,0 +1,221 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import me.jamiemansfield.symphony.SharedConstants;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An on-disk cache of {@link JarIndex jar indices}, keyed by the SHA-1
+ * of the jar's central directory - so a jar that has been opened before
+ * needn't be indexed again.
+ * <p>
+ * Only the most recently used indices are kept.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+final class JarIndexCache {
+
+    /**
+     * The index cache, within Symphony's configuration directory.
+     */
+    static final JarIndexCache INSTANCE = new JarIndexCache(SharedConstants.CONFIG_PATH.resolve("indices"), 16);
+
+    private static final int MAGIC = 0x53594D49;
+    private static final int VERSION = 2;
+    private static final String EXTENSION = ".idx";
+
+    private final Path directory;
+    private final int maximumSize;
+
+    JarIndexCache(final Path directory, final int maximumSize) {
+        this.directory = directory;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Loads the cached index of the given jar.
+     *
+     * @param jar The jar
+     * @return The index, or {@code null} if not cached
+     */
+    JarIndex load(final MappedJarFile jar) {
+        final Path path = this.directory.resolve(key(jar) + EXTENSION);
+        try {
+            final ByteBuffer buffer = read(path);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+            final JarIndex index = JarIndex.read(buffer);
+
+            // Mark the index as recently used
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return index;
+        }
+        catch (final NoSuchFileException ignored) {
+            return null;
+        }
+        catch (final IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+        catch (final RuntimeException ex) {
+            // The cached index is corrupt, so is removed - and the jar indexed again
+            ex.printStackTrace();
+            try {
+                Files.deleteIfExists(path);
+            }
+            catch (final IOException ignored) {
+                // note: the index will be saved over it, once built
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Caches the index of the given jar, evicting the least recently used
+     * indices should the cache become too large.
+     *
+     * @param jar The jar
+     * @param index The jar's index
+     */
+    void save(final MappedJarFile jar, final JarIndex index) {
+        try {
+            Files.createDirectories(this.directory);
+            final Path path = this.directory.resolve(key(jar) + EXTENSION);
+            final Path temporary = Files.createTempFile(this.directory, path.getFileName().toString(), ".tmp");
+            try {
+                try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    index.write(out);
+                }
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            finally {
+                Files.deleteIfExists(temporary);
+            }
+
+            this.evict();
+        }
+        catch (final IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    private void evict() throws IOException {
+        final List<Path> indices = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "*" + EXTENSION)) {
+            stream.forEach(indices::add);
+        }
+        if (indices.size() <= this.maximumSize) return;
+
+        indices.sort(Comparator.comparing(path -> path.toFile().lastModified()));
+        for (final Path path : indices.subList(0, indices.size() - this.maximumSize)) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static ByteBuffer read(final Path path) throws IOException {
+        // note: read, rather than mapped, as a mapped file can't be replaced or
+        //       deleted on Windows until the mapping has been garbage collected
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) == -1) throw new EOFException("Unexpected end of " + path);
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    private static String key(final MappedJarFile jar) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(jar.getCentralDirectory());
+            final StringBuilder key = new StringBuilder();
+            for (final byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        }
+        catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // Serialisation helpers
+
+    static void writeStrings(final DataOutputStream out, final String[] strings) throws IOException {
+        out.writeInt(strings.length);
+        for (final String string : strings) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    static String[] readStrings(final ByteBuffer buffer) {
+        final String[] strings = new String[readCount(buffer, Integer.BYTES)];
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < strings.length; i++) {
+            final int length = readCount(buffer, 1);
+            if (length > bytes.length) bytes = new byte[length];
+            buffer.get(bytes, 0, length);
+            strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    /**
+     * Reads a count of elements, checking that the rest of the buffer
+     * could hold that many - so a corrupt count fails the read, rather
+     * than allocating without bound.
+     *
+     * @param buffer The buffer to read from
+     * @param elementSize The fewest bytes each element is written with
+     * @return The count
+     */
+    static int readCount(final ByteBuffer buffer, final int elementSize) {
+        final int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / elementSize) {
+            throw new IllegalArgumentException("Corrupt count: " + count);
+        }
+        return count;
+    }
+
+    static void writeInts(final DataOutputStream out, final int[] ints) throws IOException {
+        for (final int i : ints) {
+            out.writeInt(i);
+        }
+    }
+
+    static void readInts(final ByteBuffer buffer, final int[] ints) {
+        buffer.asIntBuffer().get(ints);
+        buffer.position(buffer.position() + ints.length * Integer.BYTES);
+    }
+
+}
@@ -0,0 +1,260 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import org.cadixdev.bombe.jar.AbstractJarEntry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A minimal writer of jar files, that writes entries that have already
+ * been compressed - allowing entries to be compressed in parallel, or
+ * copied from another jar without being inflated and deflated again.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+class JarWriter implements Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+    private static final int END_LENGTH = 22;
+    private static final int ZIP64_END_LENGTH = 56;
+    private static final int ZIP64_LOCATOR_LENGTH = 20;
+
+    private static final short VERSION = 20;
+    private static final short ZIP64_VERSION = 45;
+    private static final short UTF8_FLAG = 0x0800;
+
+    private static final short DEFLATED = 8;
+
+    // Deflaters are expensive to create - so re-use them per-thread
+    private static final ThreadLocal<Deflater> DEFLATER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+    /**
+     * Compresses the given jar entry, ready to be written.
+     *
+     * @param entry The jar entry
+     * @return The compressed entry
+     */
+    static Entry deflate(final AbstractJarEntry entry) {
+        final byte[] contents = entry.getContents();
+        final CRC32 crc = new CRC32();
+        crc.update(contents, 0, contents.length);
+
+        final Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(contents);
+        deflater.finish();
+        byte[] compressed = new byte[Math.max(64, contents.length / 2)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+
+        return new Entry(entry.getName(), DEFLATED, toDosTime(entry.getTime()), (int) crc.getValue(),
+                contents.length, ByteBuffer.wrap(compressed, 0, length));
+    }
+
+    /**
+     * Gets the entry at the given index of the given jar, exactly as it
+     * was written - without inflating it.
+     *
+     * @param jar The jar
+     * @param index The index of the entry
+     * @return The raw entry
+     */
+    static Entry raw(final MappedJarFile jar, final int index) {
+        return new Entry(jar.getName(index), (short) jar.getMethod(index), jar.getDosTime(index), jar.getCrc(index),
+                jar.getUncompressedSize(index), jar.getRawData(index));
+    }
+
+    private static int toDosTime(final long time) {
+        final LocalDateTime date = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        if (date.getYear() < 1980) return (1 << 21) | (1 << 16);
+        return (date.getYear() - 1980) << 25
+                | date.getMonthValue() << 21
+                | date.getDayOfMonth() << 16
+                | date.getHour() << 11
+                | date.getMinute() << 5
+                | date.getSecond() >> 1;
+    }
+
+    private final FileChannel channel;
+    private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+    private long position;
+    private int count;
+
+    JarWriter(final Path path) throws IOException {
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Writes the given entry to the jar.
+     *
+     * @param entry The entry
+     * @throws IOException Should the entry fail to write
+     */
+    void write(final Entry entry) throws IOException {
+        if (this.position > 0xFFFFFFFFL) throw new IOException("Jar is too large to write: " + entry.name);
+        final byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+        final int compressedSize = entry.data.remaining();
+
+        final ByteBuffer local = header(LOCAL_HEADER_LENGTH + name.length)
+                .putInt(LOCAL_HEADER_SIGNATURE)
+                .putShort(VERSION)
+                .putShort(UTF8_FLAG)
+                .putShort(entry.method)
+                .putInt(entry.time)
+                .putInt(entry.crc)
+                .putInt(compressedSize)
+                .putInt(entry.uncompressedSize)
+                .putShort((short) name.length)
+                .putShort((short) 0)
+                .put(name);
+        final ByteBuffer central = header(CENTRAL_HEADER_LENGTH + name.length)
+                .putInt(CENTRAL_HEADER_SIGNATURE)
+                .putShort(VERSION)
+                .putShort(VERSION)
+                .putShort(UTF8_FLAG)
+                .putShort(entry.method)
+                .putInt(entry.time)
+                .putInt(entry.crc)
+                .putInt(compressedSize)
+                .putInt(entry.uncompressedSize)
+                .putShort((short) name.length)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(0)
+                .putInt((int) this.position)
+                .put(name);
+        this.centralDirectory.write(central.array(), 0, central.capacity());
+
+        this.writeHeader(local);
+        this.writeFully(entry.data.duplicate());
+        this.count++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            final long directoryOffset = this.position;
+            final long directorySize = this.centralDirectory.size();
+            if (directoryOffset > 0xFFFFFFFFL) throw new IOException("Jar is too large to write");
+            this.writeFully(ByteBuffer.wrap(this.centralDirectory.toByteArray()));
+
+            // Jars with too many entries for the end record need a zip64 end record
+            final boolean zip64 = this.count >= 0xFFFF;
+            if (zip64) {
+                final long zip64End = this.position;
+                this.writeHeader(header(ZIP64_END_LENGTH + ZIP64_LOCATOR_LENGTH)
+                        .putInt(ZIP64_END_SIGNATURE)
+                        .putLong(ZIP64_END_LENGTH - 12)
+                        .putShort(ZIP64_VERSION)
+                        .putShort(ZIP64_VERSION)
+                        .putInt(0)
+                        .putInt(0)
+                        .putLong(this.count)
+                        .putLong(this.count)
+                        .putLong(directorySize)
+                        .putLong(directoryOffset)
+                        .putInt(ZIP64_LOCATOR_SIGNATURE)
+                        .putInt(0)
+                        .putLong(zip64End)
+                        .putInt(1));
+            }
+
+            final short entries = zip64 ? (short) 0xFFFF : (short) this.count;
+            this.writeHeader(header(END_LENGTH)
+                    .putInt(END_SIGNATURE)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort(entries)
+                    .putShort(entries)
+                    .putInt((int) directorySize)
+                    .putInt((int) directoryOffset)
+                    .putShort((short) 0));
+        }
+        finally {
+            this.channel.close();
+        }
+    }
+
+    private void writeHeader(final ByteBuffer header) throws IOException {
+        header.flip();
+        this.writeFully(header);
+    }
+
+    private void writeFully(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.position += this.channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer header(final int length) {
+        return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * An entry, ready to be written to a jar.
+     */
+    static final class Entry {
+
+        private final String name;
+        private final short method;
+        private final int time;
+        private final int crc;
+        private final int uncompressedSize;
+        private final ByteBuffer data;
+
+        Entry(final String name, final short method, final int time, final int crc,
+                final int uncompressedSize, final ByteBuffer data) {
+            this.name = name;
+            this.method = method;
+            this.time = time;
+            this.crc = crc;
+            this.uncompressedSize = uncompressedSize;
+            this.data = data;
+        }
+
+        String getName() {
+            return this.name;
+        }
+
+        int getCrc() {
+            return this.crc;
+        }
+
+    }
+
+}
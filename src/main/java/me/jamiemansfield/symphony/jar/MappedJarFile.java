@@ -0,0 +1,559 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import org.cadixdev.bombe.asm.jar.ClassProvider;
+import org.cadixdev.bombe.jar.AbstractJarEntry;
+import org.cadixdev.bombe.jar.JarClassEntry;
+import org.cadixdev.bombe.jar.JarManifestEntry;
+import org.cadixdev.bombe.jar.JarResourceEntry;
+import org.cadixdev.bombe.jar.JarServiceProviderConfigurationEntry;
+import org.cadixdev.bombe.jar.ServiceProviderConfiguration;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.jar.Manifest;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A read-only view of a jar file, that memory-maps the archive (or reads
+ * it into memory) and indexes its central directory once - allowing entries to be looked
+ * up with a single hash probe, rather than going through the zip layer
+ * of {@link java.util.jar.JarFile} for every request.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public class MappedJarFile implements ClassProvider, Closeable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+    private static final int END_LENGTH = 22;
+    private static final int ZIP64_LOCATOR_LENGTH = 20;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private static final String CLASS_EXTENSION = ".class";
+    private static final int CLASS_EXTENSION_HASH = ".class".hashCode();
+    private static final int CLASS_EXTENSION_MULTIPLIER = pow31(CLASS_EXTENSION.length());
+
+    private static final String MANIFEST_NAME = "META-INF/MANIFEST.MF";
+    private static final String SERVICES_PREFIX = "META-INF/services/";
+
+    // Inflaters, and their input buffers, are expensive to create - so re-use them per-thread
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+    private static final ThreadLocal<byte[]> INPUT_BUFFER = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    // The central directory index, stored as parallel arrays
+    private final int size;
+    private final String[] names;
+    private final short[] methods;
+    private final int[] crcs;
+    private final int[] times;
+    private final int[] compressedSizes;
+    private final int[] uncompressedSizes;
+    private final int[] headerOffsets;
+    private final int[] dataOffsets;
+    private final int directoryStart;
+    private final int directoryEnd;
+
+    // An open-addressed hash table of (entry index + 1), 0 marking a free slot
+    private final int[] table;
+    private final int mask;
+
+    public MappedJarFile(final Path path) throws IOException {
+        this(path, true);
+    }
+
+    /**
+     * Opens the given jar, either memory-mapping it or reading it into
+     * memory.
+     * <p>
+     * A jar that is about to be replaced must not be mapped, as on Windows
+     * a mapped file can't be replaced until the mapping has been garbage
+     * collected - long after the jar has been closed.
+     *
+     * @param path The path of the jar
+     * @param mapped Whether to map the jar, rather than read it
+     * @throws IOException Should the jar not be readable
+     */
+    MappedJarFile(final Path path, final boolean mapped) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            final long length = this.channel.size();
+            if (length > Integer.MAX_VALUE) throw new IOException("Jar is too large to map: " + path);
+            if (mapped) {
+                this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            }
+            else {
+                this.buffer = ByteBuffer.allocate((int) length);
+                while (this.buffer.hasRemaining()) {
+                    if (this.channel.read(this.buffer) == -1) throw new EOFException("Unexpected end of jar: " + path);
+                }
+                this.buffer.clear();
+                // note: nothing more is read from the file, so it needn't be held open
+                this.channel.close();
+            }
+            this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            // Locate the central directory
+            final int end = this.findEnd();
+            long entries = this.buffer.getShort(end + 10) & 0xFFFF;
+            long directoryOffset = this.buffer.getInt(end + 16) & 0xFFFFFFFFL;
+            if (entries == 0xFFFF || directoryOffset == 0xFFFFFFFFL) {
+                final int locator = end - ZIP64_LOCATOR_LENGTH;
+                if (locator >= 0 && this.buffer.getInt(locator) == ZIP64_LOCATOR_SIGNATURE) {
+                    final int zip64End = this.checkedOffset(this.buffer.getLong(locator + 8));
+                    if (this.buffer.getInt(zip64End) != ZIP64_END_SIGNATURE) {
+                        throw new IOException("Invalid zip64 end of central directory: " + path);
+                    }
+                    entries = this.buffer.getLong(zip64End + 32);
+                    directoryOffset = this.buffer.getLong(zip64End + 48);
+                }
+            }
+            if (entries > Integer.MAX_VALUE) throw new IOException("Jar has too many entries: " + path);
+
+            // Read the central directory
+            this.size = (int) entries;
+            this.names = new String[this.size];
+            this.methods = new short[this.size];
+            this.crcs = new int[this.size];
+            this.times = new int[this.size];
+            this.compressedSizes = new int[this.size];
+            this.uncompressedSizes = new int[this.size];
+            this.headerOffsets = new int[this.size];
+            this.dataOffsets = new int[this.size];
+
+            int position = this.directoryStart = this.checkedOffset(directoryOffset);
+            byte[] nameBuffer = new byte[256];
+            for (int i = 0; i < this.size; i++) {
+                if (this.buffer.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                    throw new IOException("Invalid central directory header: " + path);
+                }
+                final long compressedSize = this.buffer.getInt(position + 20) & 0xFFFFFFFFL;
+                final long uncompressedSize = this.buffer.getInt(position + 24) & 0xFFFFFFFFL;
+                final long headerOffset = this.buffer.getInt(position + 42) & 0xFFFFFFFFL;
+                if (compressedSize == 0xFFFFFFFFL || uncompressedSize == 0xFFFFFFFFL || headerOffset == 0xFFFFFFFFL) {
+                    throw new IOException("Jar contains a zip64 entry, which is not supported: " + path);
+                }
+
+                final int nameLength = this.buffer.getShort(position + 28) & 0xFFFF;
+                final int extraLength = this.buffer.getShort(position + 30) & 0xFFFF;
+                final int commentLength = this.buffer.getShort(position + 32) & 0xFFFF;
+                if (nameLength > nameBuffer.length) nameBuffer = new byte[nameLength];
+                final ByteBuffer name = this.buffer.duplicate();
+                name.position(position + CENTRAL_HEADER_LENGTH);
+                name.get(nameBuffer, 0, nameLength);
+
+                this.names[i] = new String(nameBuffer, 0, nameLength, StandardCharsets.UTF_8);
+                this.methods[i] = this.buffer.getShort(position + 10);
+                this.times[i] = this.buffer.getInt(position + 12);
+                this.crcs[i] = this.buffer.getInt(position + 16);
+                this.compressedSizes[i] = (int) compressedSize;
+                this.uncompressedSizes[i] = (int) uncompressedSize;
+                this.headerOffsets[i] = (int) headerOffset;
+                this.dataOffsets[i] = -1;
+
+                position += CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength;
+            }
+            this.directoryEnd = position;
+
+            // Build the name index
+            int capacity = Integer.highestOneBit(Math.max(this.size, 1) * 2 - 1) << 1;
+            this.table = new int[capacity];
+            this.mask = capacity - 1;
+            for (int i = 0; i < this.size; i++) {
+                int slot = spread(this.names[i].hashCode()) & this.mask;
+                while (this.table[slot] != 0) slot = (slot + 1) & this.mask;
+                this.table[slot] = i + 1;
+            }
+        }
+        catch (final IOException | RuntimeException ex) {
+            this.channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Gets the path of the jar file.
+     *
+     * @return The path
+     */
+    public Path getPath() {
+        return this.path;
+    }
+
+    /**
+     * Gets the number of entries within the jar, including directories.
+     *
+     * @return The number of entries
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the name of the entry at the given index.
+     *
+     * @param index The index of the entry
+     * @return The name
+     */
+    public String getName(final int index) {
+        return this.names[index];
+    }
+
+    /**
+     * Gets the last modified time of the entry at the given index.
+     *
+     * @param index The index of the entry
+     * @return The time, in milliseconds since the epoch
+     */
+    public long getTime(final int index) {
+        final int dosTime = this.times[index];
+        return LocalDateTime.of(
+                ((dosTime >> 25) & 0x7F) + 1980,
+                Math.max((dosTime >> 21) & 0x0F, 1),
+                Math.max((dosTime >> 16) & 0x1F, 1),
+                Math.min((dosTime >> 11) & 0x1F, 23),
+                Math.min((dosTime >> 5) & 0x3F, 59),
+                Math.min((dosTime << 1) & 0x3E, 59)
+        ).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Gets the CRC-32 of the (uncompressed) contents of the entry at
+     * the given index, as recorded in the central directory.
+     *
+     * @param index The index of the entry
+     * @return The CRC-32
+     */
+    public int getCrc(final int index) {
+        return this.crcs[index];
+    }
+
+    /**
+     * Gets the compression method of the entry at the given index.
+     *
+     * @param index The index of the entry
+     * @return The compression method
+     */
+    int getMethod(final int index) {
+        return this.methods[index];
+    }
+
+    /**
+     * Gets the last modified time of the entry at the given index, as
+     * recorded in the central directory.
+     *
+     * @param index The index of the entry
+     * @return The time, in MS-DOS format
+     */
+    int getDosTime(final int index) {
+        return this.times[index];
+    }
+
+    /**
+     * Gets the compressed size of the entry at the given index.
+     *
+     * @param index The index of the entry
+     * @return The compressed size, in bytes
+     */
+    int getCompressedSize(final int index) {
+        return this.compressedSizes[index];
+    }
+
+    /**
+     * Gets the uncompressed size of the entry at the given index.
+     *
+     * @param index The index of the entry
+     * @return The uncompressed size, in bytes
+     */
+    int getUncompressedSize(final int index) {
+        return this.uncompressedSizes[index];
+    }
+
+    /**
+     * Gets the index of the entry of the given name.
+     *
+     * @param name The name of the entry
+     * @return The index, or {@code -1} should no such entry exist
+     */
+    public int indexOf(final String name) {
+        int slot = spread(name.hashCode()) & this.mask;
+        for (int candidate; (candidate = this.table[slot]) != 0; slot = (slot + 1) & this.mask) {
+            if (Objects.equals(name, this.names[candidate - 1])) return candidate - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the index of the entry for the given class, without having
+     * to construct the entry name.
+     *
+     * @param klass The name of the class
+     * @return The index, or {@code -1} should no such class exist
+     */
+    public int indexOfClass(final String klass) {
+        final int hash = klass.hashCode() * CLASS_EXTENSION_MULTIPLIER + CLASS_EXTENSION_HASH;
+        int slot = spread(hash) & this.mask;
+        for (int candidate; (candidate = this.table[slot]) != 0; slot = (slot + 1) & this.mask) {
+            final String name = this.names[candidate - 1];
+            if (name.length() == klass.length() + CLASS_EXTENSION.length() &&
+                    name.startsWith(klass) && name.endsWith(CLASS_EXTENSION)) {
+                return candidate - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Establishes whether the jar contains the given class.
+     *
+     * @param klass The name of the class
+     * @return {@code true} if the class is present; {@code false} otherwise
+     */
+    public boolean hasClass(final String klass) {
+        return this.indexOfClass(klass) != -1;
+    }
+
+    /**
+     * Gets the names of all the classes within the jar, without reading
+     * any of their contents.
+     *
+     * @return The class names
+     */
+    public Stream<String> classes() {
+        return IntStream.range(0, this.size)
+                .mapToObj(i -> this.names[i])
+                .filter(name -> name.endsWith(CLASS_EXTENSION))
+                .map(name -> name.substring(0, name.length() - CLASS_EXTENSION.length()));
+    }
+
+    /**
+     * Gets a read-only view of the raw data of the entry at the given
+     * index, as stored within the jar. For stored (uncompressed) entries,
+     * this is the contents of the entry - served without copying.
+     *
+     * @param index The index of the entry
+     * @return The raw data
+     */
+    public ByteBuffer getRawData(final int index) {
+        final ByteBuffer data = this.buffer.duplicate();
+        final int offset = this.getDataOffset(index);
+        data.position(offset);
+        data.limit(offset + this.compressedSizes[index]);
+        return data.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets the raw central directory of the jar, which - recording the
+     * name, size and CRC-32 of every entry - identifies its contents.
+     *
+     * @return The central directory
+     */
+    ByteBuffer getCentralDirectory() {
+        final ByteBuffer directory = this.buffer.duplicate();
+        directory.position(this.directoryStart);
+        directory.limit(this.directoryEnd);
+        return directory.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Reads the contents of the entry at the given index.
+     *
+     * @param index The index of the entry
+     * @return The contents
+     */
+    public byte[] read(final int index) {
+        final byte[] contents = new byte[this.uncompressedSizes[index]];
+        final ByteBuffer data = this.buffer.duplicate();
+        data.position(this.getDataOffset(index));
+
+        switch (this.methods[index]) {
+            case STORED:
+                data.get(contents);
+                return contents;
+            case DEFLATED: {
+                final int compressedSize = this.compressedSizes[index];
+                byte[] input = INPUT_BUFFER.get();
+                if (input.length <= compressedSize) {
+                    input = new byte[Integer.highestOneBit(compressedSize) << 1];
+                    INPUT_BUFFER.set(input);
+                }
+                data.get(input, 0, compressedSize);
+                // nowrap inflaters may need an extra "dummy" byte of input
+                input[compressedSize] = 0;
+
+                final Inflater inflater = INFLATER.get();
+                try {
+                    inflater.setInput(input, 0, compressedSize + 1);
+                    int read = 0;
+                    while (read < contents.length) {
+                        final int count = inflater.inflate(contents, read, contents.length - read);
+                        if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                            break;
+                        }
+                        read += count;
+                    }
+                    if (read != contents.length) {
+                        throw new UncheckedIOException(new IOException("Truncated entry: " + this.names[index]));
+                    }
+                    return contents;
+                }
+                catch (final DataFormatException ex) {
+                    throw new UncheckedIOException(new IOException("Corrupt entry: " + this.names[index], ex));
+                }
+                finally {
+                    inflater.reset();
+                }
+            }
+            default:
+                throw new UncheckedIOException(new IOException(
+                        "Unsupported compression method " + this.methods[index] + ": " + this.names[index]
+                ));
+        }
+    }
+
+    @Override
+    public byte[] get(final String klass) {
+        final int index = this.indexOfClass(klass);
+        if (index == -1) return null;
+        return this.read(index);
+    }
+
+    /**
+     * Gets all the (non-directory) entries of the jar, in the same form
+     * as {@link org.cadixdev.bombe.jar.Jars#walk(java.util.jar.JarFile)}.
+     * The contents of each entry are only read as the stream is consumed.
+     *
+     * @return The entries
+     */
+    public Stream<AbstractJarEntry> entries() {
+        return IntStream.range(0, this.size)
+                .filter(i -> !this.isDirectory(i))
+                .mapToObj(this::readEntry);
+    }
+
+    /**
+     * Establishes whether the entry at the given index is a directory.
+     *
+     * @param index The index of the entry
+     * @return {@code true} if the entry is a directory
+     */
+    public boolean isDirectory(final int index) {
+        return this.names[index].endsWith("/");
+    }
+
+    /**
+     * Reads the (non-directory) entry at the given index, in the same
+     * form as {@link org.cadixdev.bombe.jar.Jars#walk(java.util.jar.JarFile)}.
+     *
+     * @param index The index of the entry
+     * @return The entry
+     */
+    public AbstractJarEntry readEntry(final int index) {
+        final String name = this.names[index];
+        final long time = this.getTime(index);
+        final byte[] contents = this.read(index);
+
+        try {
+            if (Objects.equals(MANIFEST_NAME, name)) {
+                return new JarManifestEntry(time, new Manifest(new ByteArrayInputStream(contents)));
+            }
+            else if (name.startsWith(SERVICES_PREFIX)) {
+                final ServiceProviderConfiguration config =
+                        new ServiceProviderConfiguration(name.substring(SERVICES_PREFIX.length()));
+                config.read(new ByteArrayInputStream(contents));
+                return new JarServiceProviderConfigurationEntry(time, config);
+            }
+        }
+        catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        if (name.endsWith(CLASS_EXTENSION)) {
+            return new JarClassEntry(name, time, contents);
+        }
+        return new JarResourceEntry(name, time, contents);
+    }
+
+    private int getDataOffset(final int index) {
+        // The local header's extra field may differ from the central directory's,
+        // so it has to be read - but only once per entry.
+        int offset = this.dataOffsets[index];
+        if (offset == -1) {
+            final int header = this.headerOffsets[index];
+            if (this.buffer.getInt(header) != LOCAL_HEADER_SIGNATURE) {
+                throw new UncheckedIOException(new IOException("Invalid local header: " + this.names[index]));
+            }
+            offset = header + LOCAL_HEADER_LENGTH
+                    + (this.buffer.getShort(header + 26) & 0xFFFF)
+                    + (this.buffer.getShort(header + 28) & 0xFFFF);
+            this.dataOffsets[index] = offset;
+        }
+        return offset;
+    }
+
+    private int findEnd() throws IOException {
+        final int limit = Math.max(0, this.buffer.limit() - END_LENGTH - 0xFFFF);
+        for (int position = this.buffer.limit() - END_LENGTH; position >= limit; position--) {
+            if (this.buffer.getInt(position) == END_SIGNATURE) return position;
+        }
+        throw new IOException("Could not find end of central directory: " + this.path);
+    }
+
+    private int checkedOffset(final long offset) throws IOException {
+        if (offset < 0 || offset >= this.buffer.limit()) {
+            throw new IOException("Invalid offset within jar: " + this.path);
+        }
+        return (int) offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int pow31(final int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++) result *= 31;
+        return result;
+    }
+
+}
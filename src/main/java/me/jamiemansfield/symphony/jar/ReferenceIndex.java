@@ -0,0 +1,312 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * An index of the classes each class within a jar refers to, and the
+ * inverse - the classes that refer to each class - built from the
+ * constant pools of every class.
+ * <p>
+ * Classes whose constant pools couldn't be read are assumed to refer to
+ * every class, so they're never missed when invalidating referrers.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+class ReferenceIndex {
+
+    private static final String[] NO_CLASSES = new String[0];
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    /**
+     * Creates a reference index from the classes each class refers to.
+     *
+     * @param classes The obfuscated names of the classes
+     * @param references The classes each class refers to, any of which
+     *                   may be {@code null}
+     * @param unscanned The classes whose references couldn't be read
+     * @return The reference index
+     */
+    static ReferenceIndex of(final String[] classes, final String[][] references, final String[] unscanned) {
+        final Map<String, String[]> compactReferences = new HashMap<>(classes.length * 4 / 3 + 1);
+        final Map<String, List<String>> referrers = new HashMap<>();
+        for (int i = 0; i < classes.length; i++) {
+            if (references[i] == null) continue;
+            compactReferences.put(classes[i], references[i]);
+            for (final String reference : references[i]) {
+                referrers.computeIfAbsent(reference, key -> new ArrayList<>()).add(classes[i]);
+            }
+        }
+
+        final Map<String, String[]> compactReferrers = new HashMap<>(referrers.size() * 4 / 3 + 1);
+        referrers.forEach((klass, refs) -> compactReferrers.put(klass, refs.toArray(NO_CLASSES)));
+        return new ReferenceIndex(compactReferences, compactReferrers, unscanned);
+    }
+
+    /**
+     * Reads a reference index, as written by {@link #write(DataOutputStream)}.
+     *
+     * @param buffer The buffer to read from
+     * @return The reference index
+     */
+    static ReferenceIndex read(final ByteBuffer buffer) {
+        final String[] strings = JarIndexCache.readStrings(buffer);
+        // note: each class is written with its name and number of references
+        final String[] classes = new String[JarIndexCache.readCount(buffer, 2 * Integer.BYTES)];
+        final String[][] references = new String[classes.length][];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = strings[buffer.getInt()];
+            references[i] = new String[JarIndexCache.readCount(buffer, Integer.BYTES)];
+            for (int j = 0; j < references[i].length; j++) {
+                references[i][j] = strings[buffer.getInt()];
+            }
+        }
+        final String[] unscanned = new String[JarIndexCache.readCount(buffer, Integer.BYTES)];
+        for (int i = 0; i < unscanned.length; i++) {
+            unscanned[i] = strings[buffer.getInt()];
+        }
+        return of(classes, references, unscanned);
+    }
+
+    private final Map<String, String[]> references;
+    private final Map<String, String[]> referrers;
+    private final String[] unscanned;
+
+    private ReferenceIndex(final Map<String, String[]> references, final Map<String, String[]> referrers,
+            final String[] unscanned) {
+        this.references = references;
+        this.referrers = referrers;
+        this.unscanned = unscanned;
+    }
+
+    /**
+     * Writes the reference index, to be read by {@link #read(ByteBuffer)}.
+     *
+     * @param out The stream to write to
+     * @throws IOException Should the index fail to write
+     */
+    void write(final DataOutputStream out) throws IOException {
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> strings = new ArrayList<>();
+        final ToIntFunction<String> intern = string -> ids.computeIfAbsent(string, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+        this.references.forEach((klass, refs) -> {
+            intern.applyAsInt(klass);
+            for (final String reference : refs) intern.applyAsInt(reference);
+        });
+        for (final String klass : this.unscanned) {
+            intern.applyAsInt(klass);
+        }
+
+        JarIndexCache.writeStrings(out, strings.toArray(NO_CLASSES));
+        out.writeInt(this.references.size());
+        for (final Map.Entry<String, String[]> entry : this.references.entrySet()) {
+            out.writeInt(ids.get(entry.getKey()));
+            out.writeInt(entry.getValue().length);
+            for (final String reference : entry.getValue()) {
+                out.writeInt(ids.get(reference));
+            }
+        }
+        out.writeInt(this.unscanned.length);
+        for (final String klass : this.unscanned) {
+            out.writeInt(ids.get(klass));
+        }
+    }
+
+    /**
+     * Gets the classes, within the jar, that the given class refers to.
+     *
+     * @param klass The obfuscated name of the class
+     * @return The obfuscated names of the referenced classes
+     */
+    String[] getReferences(final String klass) {
+        return this.references.getOrDefault(klass, NO_CLASSES);
+    }
+
+    /**
+     * Gets the classes, within the jar, that refer to the given class -
+     * including those whose references couldn't be read.
+     *
+     * @param klass The obfuscated name of the class
+     * @return The obfuscated names of the referring classes
+     */
+    String[] getReferrers(final String klass) {
+        final String[] referrers = this.referrers.getOrDefault(klass, NO_CLASSES);
+        if (this.unscanned.length == 0) return referrers;
+
+        final String[] all = Arrays.copyOf(referrers, referrers.length + this.unscanned.length);
+        System.arraycopy(this.unscanned, 0, all, referrers.length, this.unscanned.length);
+        return all;
+    }
+
+    /**
+     * Scans the constant pool of the given class, for the names of all
+     * the classes it refers to - either directly, or through descriptors
+     * and signatures.
+     * <p>
+     * This errs on the side of caution, and may produce names that
+     * aren't classes at all.
+     *
+     * @param bytecode The class
+     * @return The referenced class names
+     * @throws IllegalArgumentException Should the class be malformed, or
+     *         its constant pool contain an unknown constant
+     */
+    static Set<String> scan(final byte[] bytecode) {
+        if (bytecode.length < 10 || readInt(bytecode, 0) != MAGIC) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+        final int count = readUnsignedShort(bytecode, 8);
+        final int[] utf8Offsets = new int[count];
+        final int[] classNames = new int[count];
+        int classCount = 0;
+
+        // Locate all the UTF-8 and class entries
+        int position = 10;
+        for (int i = 1; i < count; i++) {
+            checkBounds(bytecode, position, 1);
+            switch (bytecode[position]) {
+                case CONSTANT_UTF8:
+                    utf8Offsets[i] = position + 1;
+                    position += 3 + readUnsignedShort(bytecode, position + 1);
+                    break;
+                case CONSTANT_CLASS: {
+                    final int name = readUnsignedShort(bytecode, position + 1);
+                    if (name >= count) throw new IllegalArgumentException("Class constant out of range: " + name);
+                    classNames[classCount++] = name;
+                    position += 3;
+                    break;
+                }
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    position += 3;
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    position += 4;
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    position += 5;
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    position += 9;
+                    i++;
+                    break;
+                default:
+                    // An unknown constant, so the rest of the pool can't be read
+                    throw new IllegalArgumentException("Unknown constant pool tag: " + bytecode[position]);
+            }
+        }
+        // note: the final entry must lie within the class, so every entry does
+        checkBounds(bytecode, 0, position);
+
+        final Set<String> references = new HashSet<>();
+
+        // Class entries name classes, or array descriptors
+        for (int i = 0; i < classCount; i++) {
+            final int offset = utf8Offsets[classNames[i]];
+            if (offset == 0) continue;
+            utf8Offsets[classNames[i]] = 0;
+            if (bytecode[offset + 2] == '[') {
+                scanDescriptor(readUtf8(bytecode, offset), references);
+            }
+            else {
+                references.add(readUtf8(bytecode, offset));
+            }
+        }
+
+        // Any other entry could be a descriptor or signature
+        for (final int offset : utf8Offsets) {
+            if (offset == 0 || readUnsignedShort(bytecode, offset) == 0) continue;
+            final byte first = bytecode[offset + 2];
+            if (first == '(' || first == 'L' || first == '[' || first == '<') {
+                scanDescriptor(readUtf8(bytecode, offset), references);
+            }
+        }
+
+        return references;
+    }
+
+    private static void scanDescriptor(final String descriptor, final Set<String> references) {
+        int i = 0;
+        while ((i = descriptor.indexOf('L', i)) != -1) {
+            int end = i + 1;
+            while (end < descriptor.length()) {
+                final char c = descriptor.charAt(end);
+                if (c == ';' || c == '<') break;
+                end++;
+            }
+            if (end > i + 1) references.add(descriptor.substring(i + 1, end));
+            i = end;
+        }
+    }
+
+    private static String readUtf8(final byte[] bytecode, final int offset) {
+        // note: modified UTF-8 only differs for characters that don't occur in class names
+        return new String(bytecode, offset + 2, readUnsignedShort(bytecode, offset), StandardCharsets.UTF_8);
+    }
+
+    private static int readUnsignedShort(final byte[] bytecode, final int offset) {
+        checkBounds(bytecode, offset, 2);
+        return ((bytecode[offset] & 0xFF) << 8) | (bytecode[offset + 1] & 0xFF);
+    }
+
+    private static int readInt(final byte[] bytecode, final int offset) {
+        return (readUnsignedShort(bytecode, offset) << 16) | readUnsignedShort(bytecode, offset + 2);
+    }
+
+    private static void checkBounds(final byte[] bytecode, final int offset, final int length) {
+        if (offset < 0 || offset + length > bytecode.length) {
+            throw new IllegalArgumentException("Truncated class file");
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size-bounded, least-recently-used cache of remapped bytecode, keyed
+ * by obfuscated class name and the generation of the mappings the class
+ * was remapped with.
+ * <p>
+ * Cached bytecode remains valid for later generations of the mappings,
+ * until the class is {@link #invalidate(String, int) invalidated}.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public class RemappedClassCache {
+
+    private final long maximumWeight;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long weight;
+
+    // The generations at which classes were last invalidated
+    private final Map<String, Integer> invalidations = new HashMap<>();
+    private int invalidatedAll;
+
+    // Statistics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    RemappedClassCache(final long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * Gets the cached bytecode for the given class, remapped with the
+     * given generation of the mappings.
+     * <p>
+     * The returned array is shared, and must not be modified.
+     *
+     * @param klass The obfuscated name of the class
+     * @param generation The mappings generation
+     * @return The remapped bytecode, or {@code null} if not cached
+     */
+    byte[] get(final String klass, final int generation) {
+        final Entry entry;
+        final boolean valid;
+        synchronized (this) {
+            entry = this.entries.get(klass);
+            valid = entry != null && this.getInvalidation(klass) <= Math.min(entry.generation, generation);
+        }
+        if (!valid) {
+            this.misses.incrementAndGet();
+            return null;
+        }
+        this.hits.incrementAndGet();
+        return entry.bytecode;
+    }
+
+    /**
+     * Caches the bytecode for the given class, remapped with the given
+     * generation of the mappings - evicting the least-recently-used
+     * classes, should the cache become too large.
+     *
+     * @param klass The obfuscated name of the class
+     * @param generation The mappings generation
+     * @param bytecode The remapped bytecode
+     */
+    synchronized void put(final String klass, final int generation, final byte[] bytecode) {
+        // Don't cache bytecode remapped with out-of-date mappings
+        if (this.getInvalidation(klass) > generation) return;
+
+        final Entry previous = this.entries.get(klass);
+        // Don't replace bytecode remapped with newer mappings
+        if (previous != null && previous.generation > generation) return;
+        if (previous != null) this.weight -= previous.bytecode.length;
+
+        this.entries.put(klass, new Entry(generation, bytecode));
+        this.weight += bytecode.length;
+
+        final Iterator<Entry> it = this.entries.values().iterator();
+        while (this.weight > this.maximumWeight && it.hasNext()) {
+            this.weight -= it.next().bytecode.length;
+            it.remove();
+            this.evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Invalidates the given class, as of the given generation of the
+     * mappings.
+     *
+     * @param klass The obfuscated name of the class
+     * @param generation The mappings generation
+     */
+    synchronized void invalidate(final String klass, final int generation) {
+        this.invalidations.merge(klass, generation, Math::max);
+        final Entry entry = this.entries.remove(klass);
+        if (entry != null) this.weight -= entry.bytecode.length;
+    }
+
+    /**
+     * Invalidates every class, as of the given generation of the
+     * mappings.
+     *
+     * @param generation The mappings generation
+     */
+    synchronized void invalidateAll(final int generation) {
+        this.invalidatedAll = Math.max(this.invalidatedAll, generation);
+        this.invalidations.clear();
+        this.clear();
+    }
+
+    /**
+     * Gets the generation of the mappings at which the given class was
+     * last invalidated - that is, when its remapped form last changed.
+     *
+     * @param klass The obfuscated name of the class
+     * @return The mappings generation
+     */
+    synchronized int getInvalidation(final String klass) {
+        return Math.max(this.invalidatedAll, this.invalidations.getOrDefault(klass, 0));
+    }
+
+    /**
+     * Removes all classes from the cache.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.weight = 0;
+    }
+
+    /**
+     * Gets the number of requests that were served from the cache.
+     *
+     * @return The hit count
+     */
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * Gets the number of requests that couldn't be served from the
+     * cache.
+     *
+     * @return The miss count
+     */
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    /**
+     * Gets the number of classes that have been evicted from the cache,
+     * to keep it within its bounds.
+     *
+     * @return The eviction count
+     */
+    public long getEvictionCount() {
+        return this.evictions.get();
+    }
+
+    /**
+     * Gets the total size, in bytes, of the bytecode within the cache.
+     *
+     * @return The weight
+     */
+    public synchronized long getWeight() {
+        return this.weight;
+    }
+
+    @Override
+    public String toString() {
+        final long hits = this.hits.get();
+        final long requests = hits + this.misses.get();
+        return String.format("RemappedClassCache{hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%, weight=%d}",
+                hits, requests - hits, this.evictions.get(),
+                requests == 0 ? 0.0 : 100.0 * hits / requests, this.getWeight());
+    }
+
+    private static final class Entry {
+
+        private final int generation;
+        private final byte[] bytecode;
+
+        Entry(final int generation, final byte[] bytecode) {
+            this.generation = generation;
+            this.bytecode = bytecode;
+        }
+
+    }
+
+}
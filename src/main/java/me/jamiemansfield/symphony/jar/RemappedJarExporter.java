@@ -0,0 +1,260 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import org.cadixdev.bombe.asm.jar.JarEntryRemappingTransformer;
+import org.cadixdev.bombe.jar.AbstractJarEntry;
+import org.cadixdev.bombe.jar.JarEntryTransformer;
+import org.objectweb.asm.commons.Remapper;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Exports a remapped copy of a jar, through a three-stage pipeline:
+ * <ol>
+ *     <li>A reader, that reads and inflates each entry in order;</li>
+ *     <li>A pool of workers, that remap and compress the entries in
+ *         parallel;</li>
+ *     <li>A single writer, that writes the entries in their original
+ *         order - so the output is deterministic.</li>
+ * </ol>
+ * Only a bounded number of entries may be in-flight at once, so the
+ * reader is held back should the workers or writer fall behind.
+ * <p>
+ * The workers may be shared with other work, in which case the export
+ * only occupies them an entry at a time.
+ * <p>
+ * Given the {@link ExportManifest manifest} of a previous export, the
+ * entries that haven't changed since are copied from it as they are -
+ * without being inflated, remapped, or compressed again.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+class RemappedJarExporter {
+
+    private static final AtomicInteger EXPORT_COUNT = new AtomicInteger();
+
+    private static final String CLASS_EXTENSION = ".class";
+    private static final String MANIFEST_NAME = "META-INF/MANIFEST.MF";
+    private static final String SERVICES_PREFIX = "META-INF/services/";
+    // How often the writer checks whether the reader has failed, while waiting
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final MappedJarFile jar;
+    private final JarEntryTransformer transformer;
+    private final int generation;
+    private final ToIntFunction<String> lastChanged;
+    private final Executor workers;
+    private final int parallelism;
+    private final int window;
+
+    /**
+     * Creates an exporter for the given jar.
+     *
+     * @param jar The jar
+     * @param remapper The remapper, for the given generation of the mappings
+     * @param generation The mappings generation
+     * @param lastChanged A function giving the generation of the mappings
+     *                    at which the remapped form of the given class last
+     *                    changed
+     * @param workers The workers to remap the entries with, or {@code null}
+     *                to create a pool of workers for each export
+     * @param parallelism The number of workers
+     */
+    RemappedJarExporter(final MappedJarFile jar, final Remapper remapper, final int generation,
+            final ToIntFunction<String> lastChanged, final Executor workers, final int parallelism) {
+        this.jar = jar;
+        this.transformer = new JarEntryRemappingTransformer(remapper);
+        this.generation = generation;
+        this.lastChanged = lastChanged;
+        this.workers = workers;
+        this.parallelism = parallelism;
+        this.window = parallelism * 16;
+    }
+
+    /**
+     * Exports the remapped jar to the given path, re-using the entries
+     * of the previous export where they haven't changed.
+     *
+     * @param exportPath The path to export to
+     * @param previous The manifest of the previous export, or {@code null}
+     * @param listener The listener for the export's progress
+     * @return The manifest of this export
+     * @throws IOException Should the export fail
+     */
+    ExportManifest export(final Path exportPath, final ExportManifest previous, final ExportListener listener)
+            throws IOException {
+        final Path target = exportPath.toAbsolutePath();
+        // note: written to a temporary file, as the previous export may be being overwritten
+        final Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            final String[] names = new String[this.jar.size()];
+            final int[] crcs = new int[this.jar.size()];
+            if (previous != null && previous.isCurrent()) {
+                // note: read rather than mapped, as it may be about to be replaced
+                try (final MappedJarFile previousJar = new MappedJarFile(previous.getPath(), false)) {
+                    this.export(temporary, previous, previousJar, names, crcs, listener);
+                }
+            }
+            else {
+                this.export(temporary, null, null, names, crcs, listener);
+            }
+
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (final AtomicMoveNotSupportedException ex) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new ExportManifest(target, this.generation, names, crcs);
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void export(final Path exportPath, final ExportManifest previous, final MappedJarFile previousJar,
+            final String[] names, final int[] crcs, final ExportListener listener) throws IOException {
+        final long start = System.nanoTime();
+        final int[] entries = IntStream.range(0, this.jar.size())
+                .filter(i -> !this.jar.isDirectory(i))
+                .toArray();
+
+        final int id = EXPORT_COUNT.incrementAndGet();
+        final ExecutorService pool = this.workers != null ? null :
+                Executors.newFixedThreadPool(this.parallelism, daemonThreads("export-" + id + "-worker-"));
+        final Executor workers = pool != null ? pool : this.workers;
+        final BlockingQueue<Future<JarWriter.Entry>> queue = new ArrayBlockingQueue<>(this.window);
+        final AtomicReference<Throwable> readFailure = new AtomicReference<>();
+
+        // Read and inflate the entries, handing them to the workers - or
+        // copy them from the previous export, where unchanged
+        final Thread reader = daemonThreads("export-" + id + "-reader").newThread(() -> {
+            try {
+                for (final int entry : entries) {
+                    final int previousEntry = previous == null ? -1 : this.findUnchanged(entry, previous, previousJar);
+                    if (previousEntry != -1) {
+                        queue.put(CompletableFuture.completedFuture(JarWriter.raw(previousJar, previousEntry)));
+                        continue;
+                    }
+
+                    final AbstractJarEntry read = this.jar.readEntry(entry);
+                    final FutureTask<JarWriter.Entry> remap = new FutureTask<>(() -> JarWriter.deflate(read.accept(this.transformer)));
+                    // note: blocks while the window is full
+                    queue.put(remap);
+                    workers.execute(remap);
+                }
+            }
+            catch (final InterruptedException ignored) {
+            }
+            catch (final Throwable ex) {
+                // Hand the failure to the writer - which also checks for it, should
+                // the window remain full
+                readFailure.set(ex);
+                final CompletableFuture<JarWriter.Entry> failure = new CompletableFuture<>();
+                failure.completeExceptionally(ex);
+                try {
+                    queue.put(failure);
+                }
+                catch (final InterruptedException ignored) {
+                }
+            }
+        });
+        reader.start();
+
+        // Write the remapped entries, in order
+        try (final JarWriter writer = new JarWriter(exportPath)) {
+            for (int written = 0; written < entries.length; written++) {
+                Future<JarWriter.Entry> next;
+                while ((next = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) == null) {
+                    final Throwable failure = readFailure.get();
+                    if (failure != null) throw new IOException("Failed to read entry", failure);
+                }
+                final JarWriter.Entry entry = next.get();
+                writer.write(entry);
+                names[entries[written]] = entry.getName();
+                crcs[entries[written]] = entry.getCrc();
+                listener.onProgress(written + 1, entries.length, System.nanoTime() - start);
+            }
+        }
+        catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export was interrupted");
+        }
+        catch (final ExecutionException ex) {
+            throw new IOException("Failed to remap entry", ex.getCause());
+        }
+        finally {
+            reader.interrupt();
+            if (pool != null) pool.shutdownNow();
+            // note: the workers may be shared, so only this export's entries are stopped
+            for (final Future<JarWriter.Entry> remaining : queue) {
+                remaining.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Finds the entry, written by the previous export, for the given
+     * entry - should it be unaffected by the changes to the mappings
+     * since.
+     *
+     * @param index The index of the entry
+     * @param previous The manifest of the previous export
+     * @param previousJar The previously exported jar
+     * @return The index of the previously written entry, or {@code -1}
+     */
+    private int findUnchanged(final int index, final ExportManifest previous, final MappedJarFile previousJar) {
+        final String name = this.jar.getName(index);
+        // The manifest and service configurations are always remapped, as
+        // they're cheap to remap - and their dependencies aren't tracked
+        if (name.equals(MANIFEST_NAME) || name.startsWith(SERVICES_PREFIX)) return -1;
+
+        if (name.endsWith(CLASS_EXTENSION)) {
+            final String klass = name.substring(0, name.length() - CLASS_EXTENSION.length());
+            if (this.lastChanged.applyAsInt(klass) > Math.min(previous.getGeneration(), this.generation)) return -1;
+        }
+
+        final String previousName = previous.getName(index);
+        if (previousName == null) return -1;
+        final int previousEntry = previousJar.indexOf(previousName);
+        if (previousEntry == -1 || previousJar.getCrc(previousEntry) != previous.getCrc(index)) return -1;
+        return previousEntry;
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name.endsWith("-") ? name + count.incrementAndGet() : name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
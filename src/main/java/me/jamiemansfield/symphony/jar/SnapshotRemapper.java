@@ -0,0 +1,101 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import org.cadixdev.bombe.analysis.InheritanceProvider;
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.survey.remapper.SurveyRemapper;
+import org.objectweb.asm.commons.Remapper;
+
+import java.util.function.Supplier;
+
+/**
+ * A remapper of a snapshot of a jar's mappings, that is safe to use
+ * from multiple threads at once.
+ * <p>
+ * The mappings are only copied once the remapper is first used - or,
+ * should the jar's mappings be about to change before then, once
+ * {@link #materialise() materialised} - so that taking a snapshot is
+ * cheap for the thread changing the mappings.
+ * <p>
+ * Remapping adds to the copied mappings as it goes (completing classes
+ * with their inherited members, and creating mappings for the inner
+ * classes of renamed classes), which isn't safe to do concurrently - so
+ * remapping is serialised.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+class SnapshotRemapper extends Remapper {
+
+    private final Supplier<MappingSet> mappings;
+    private final InheritanceProvider inheritanceProvider;
+    private volatile Remapper remapper;
+
+    /**
+     * Creates a remapper of the given mappings.
+     *
+     * @param mappings The copy of the mappings, taken when first needed
+     * @param inheritanceProvider The inheritance provider
+     */
+    SnapshotRemapper(final Supplier<MappingSet> mappings, final InheritanceProvider inheritanceProvider) {
+        this.mappings = mappings;
+        this.inheritanceProvider = inheritanceProvider;
+    }
+
+    /**
+     * Copies the mappings, should they not have been already - as must
+     * be done before the mappings they're copied from change.
+     */
+    void materialise() {
+        if (this.remapper != null) return;
+        synchronized (this) {
+            if (this.remapper == null) {
+                this.remapper = new SurveyRemapper(this.mappings.get(), this.inheritanceProvider);
+            }
+        }
+    }
+
+    private Remapper remapper() {
+        this.materialise();
+        return this.remapper;
+    }
+
+    // note: the other methods of the remapper map through these
+
+    @Override
+    public synchronized String mapMethodName(final String owner, final String name, final String descriptor) {
+        return this.remapper().mapMethodName(owner, name, descriptor);
+    }
+
+    @Override
+    public synchronized String mapInvokeDynamicMethodName(final String name, final String descriptor) {
+        return this.remapper().mapInvokeDynamicMethodName(name, descriptor);
+    }
+
+    @Override
+    public synchronized String mapFieldName(final String owner, final String name, final String descriptor) {
+        return this.remapper().mapFieldName(owner, name, descriptor);
+    }
+
+    @Override
+    public synchronized String mapPackageName(final String name) {
+        return this.remapper().mapPackageName(name);
+    }
+
+    @Override
+    public synchronized String mapModuleName(final String name) {
+        return this.remapper().mapModuleName(name);
+    }
+
+    @Override
+    public synchronized String map(final String internalName) {
+        return this.remapper().map(internalName);
+    }
+
+}
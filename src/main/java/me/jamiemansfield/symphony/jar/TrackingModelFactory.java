@@ -0,0 +1,119 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.jar;
+
+import org.cadixdev.bombe.type.signature.FieldSignature;
+import org.cadixdev.bombe.type.signature.MethodSignature;
+import org.cadixdev.lorenz.MappingSet;
+import org.cadixdev.lorenz.impl.MappingSetModelFactoryImpl;
+import org.cadixdev.lorenz.impl.model.InnerClassMappingImpl;
+import org.cadixdev.lorenz.impl.model.TopLevelClassMappingImpl;
+import org.cadixdev.lorenz.model.ClassMapping;
+import org.cadixdev.lorenz.model.FieldMapping;
+import org.cadixdev.lorenz.model.InnerClassMapping;
+import org.cadixdev.lorenz.model.Mapping;
+import org.cadixdev.lorenz.model.MethodMapping;
+import org.cadixdev.lorenz.model.MethodParameterMapping;
+import org.cadixdev.lorenz.model.TopLevelClassMapping;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A model factory that notifies a listener whenever a mapping is
+ * created with, or given, a de-obfuscated name.
+ * <p>
+ * Before any mapping is created, or a class renamed, another listener
+ * is notified - so the mappings may be copied as they were.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+class TrackingModelFactory extends MappingSetModelFactoryImpl {
+
+    private final Runnable beforeChange;
+    private final Consumer<Mapping<?, ?>> listener;
+
+    TrackingModelFactory(final Runnable beforeChange, final Consumer<Mapping<?, ?>> listener) {
+        this.beforeChange = beforeChange;
+        this.listener = listener;
+    }
+
+    @Override
+    public TopLevelClassMapping createTopLevelClassMapping(final MappingSet parent, final String obfuscatedName, final String deobfuscatedName) {
+        this.beforeChange.run();
+        final TopLevelClassMapping mapping = new TrackedTopLevelClassMapping(parent, obfuscatedName, deobfuscatedName);
+        if (!Objects.equals(obfuscatedName, deobfuscatedName)) this.listener.accept(mapping);
+        return mapping;
+    }
+
+    @Override
+    public InnerClassMapping createInnerClassMapping(final ClassMapping parent, final String obfuscatedName, final String deobfuscatedName) {
+        this.beforeChange.run();
+        final InnerClassMapping mapping = new TrackedInnerClassMapping(parent, obfuscatedName, deobfuscatedName);
+        if (!Objects.equals(obfuscatedName, deobfuscatedName)) this.listener.accept(mapping);
+        return mapping;
+    }
+
+    @Override
+    public FieldMapping createFieldMapping(final ClassMapping parent, final FieldSignature signature, final String deobfuscatedName) {
+        this.beforeChange.run();
+        final FieldMapping mapping = super.createFieldMapping(parent, signature, deobfuscatedName);
+        this.listener.accept(mapping);
+        return mapping;
+    }
+
+    @Override
+    public MethodMapping createMethodMapping(final ClassMapping parent, final MethodSignature signature, final String deobfuscatedName) {
+        this.beforeChange.run();
+        final MethodMapping mapping = super.createMethodMapping(parent, signature, deobfuscatedName);
+        this.listener.accept(mapping);
+        return mapping;
+    }
+
+    @Override
+    public MethodParameterMapping createMethodParameterMapping(final MethodMapping parent, final int index, final String deobfuscatedName) {
+        this.beforeChange.run();
+        final MethodParameterMapping mapping = super.createMethodParameterMapping(parent, index, deobfuscatedName);
+        this.listener.accept(mapping);
+        return mapping;
+    }
+
+    private class TrackedTopLevelClassMapping extends TopLevelClassMappingImpl {
+
+        TrackedTopLevelClassMapping(final MappingSet mappings, final String obfuscatedName, final String deobfuscatedName) {
+            super(mappings, obfuscatedName, deobfuscatedName);
+        }
+
+        @Override
+        public TopLevelClassMapping setDeobfuscatedName(final String deobfuscatedName) {
+            TrackingModelFactory.this.beforeChange.run();
+            super.setDeobfuscatedName(deobfuscatedName);
+            TrackingModelFactory.this.listener.accept(this);
+            return this;
+        }
+
+    }
+
+    private class TrackedInnerClassMapping extends InnerClassMappingImpl {
+
+        TrackedInnerClassMapping(final ClassMapping parent, final String obfuscatedName, final String deobfuscatedName) {
+            super(parent, obfuscatedName, deobfuscatedName);
+        }
+
+        @Override
+        public InnerClassMapping setDeobfuscatedName(final String deobfuscatedName) {
+            TrackingModelFactory.this.beforeChange.run();
+            super.setDeobfuscatedName(deobfuscatedName);
+            TrackingModelFactory.this.listener.accept(this);
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,320 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.UnaryOperator;
+
+/**
+ * A radix tree of the simple obfuscated and de-obfuscated names of
+ * classes, for completing class names as they're typed.
+ * <p>
+ * A query matches the names it is a (case-insensitive) prefix of, and
+ * those it abbreviates by camel humps - so {@code JW}, and {@code JaWr},
+ * both match {@code JarWriter}. A query may also be qualified by the
+ * start of the class's package, as in {@code me/jamie/JW}.
+ * <p>
+ * The tree isn't thread-safe, though may be built on any thread.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public class ClassNameTrie {
+
+    // Matches of the whole prefix rank above abbreviations
+    private static final int PREFIX = 0;
+    private static final int HUMPS = 1;
+
+    /**
+     * Creates a tree of the given classes.
+     *
+     * @param klasses The obfuscated names of the classes
+     * @param deobfNames A function giving the de-obfuscated name of a class
+     * @return The tree
+     */
+    public static ClassNameTrie of(final Collection<String> klasses, final UnaryOperator<String> deobfNames) {
+        final ClassNameTrie trie = new ClassNameTrie();
+        for (final String klass : klasses) {
+            final int id = trie.obfNames.size();
+            final String deobfName = deobfNames.apply(klass);
+            trie.ids.put(klass, id);
+            trie.obfNames.add(klass);
+            trie.deobfNames.add(deobfName);
+            trie.insert(simpleName(klass), id);
+            if (!deobfName.equals(klass)) trie.insert(simpleName(deobfName), id);
+        }
+        return trie;
+    }
+
+    private final Node root = new Node("");
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> obfNames = new ArrayList<>();
+    private final List<String> deobfNames = new ArrayList<>();
+
+    // Scratch space for the kind of match of each class, reset after each query
+    private int[] matches = new int[0];
+    private final List<Integer> matched = new ArrayList<>();
+
+    private ClassNameTrie() {
+    }
+
+    /**
+     * Re-indexes the given classes, should their de-obfuscated names have
+     * changed. Classes that aren't indexed are ignored.
+     *
+     * @param klasses The obfuscated names of the classes
+     * @param deobfNames A function giving the de-obfuscated name of a class
+     */
+    public void update(final Collection<String> klasses, final UnaryOperator<String> deobfNames) {
+        for (final String klass : klasses) {
+            final Integer id = this.ids.get(klass);
+            if (id == null) continue;
+
+            final String previous = this.deobfNames.get(id);
+            final String deobfName = deobfNames.apply(klass);
+            if (deobfName.equals(previous)) continue;
+
+            // note: the obfuscated name is always indexed, so mustn't be removed
+            if (!previous.equals(klass) && !simpleName(previous).equals(simpleName(klass))) {
+                this.remove(simpleName(previous), id);
+            }
+            if (!deobfName.equals(klass)) this.insert(simpleName(deobfName), id);
+            this.deobfNames.set(id, deobfName);
+        }
+    }
+
+    /**
+     * Completes the given query, best matches first - those matching by
+     * prefix, then abbreviations, with shorter names first.
+     *
+     * @param query The query
+     * @param limit The maximum number of completions
+     * @return The obfuscated names of the matching classes
+     */
+    public List<String> complete(final String query, final int limit) {
+        final String normalised = query.trim().replace('.', '/');
+        final int packageIndex = normalised.lastIndexOf('/');
+        // note: the last segment of the package may be partial
+        final String packagePrefix = normalised.substring(0, Math.max(packageIndex, 0)).toLowerCase(Locale.ROOT);
+        final String pattern = normalised.substring(packageIndex + 1);
+        if (normalised.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        // Find the classes whose names the pattern matches, by how they're matched
+        if (this.matches.length < this.obfNames.size()) {
+            this.matches = new int[this.obfNames.size()];
+            Arrays.fill(this.matches, -1);
+        }
+        this.match(this.root, 0, pattern, 0, false, false, (char) 0);
+
+        // Keep the best matches, by how they're matched and their length
+        final Comparator<Integer> comparator = Comparator.<Integer>comparingLong(id -> this.rank(id))
+                .thenComparing(this.deobfNames::get);
+        final PriorityQueue<Integer> results = new PriorityQueue<>(limit + 1, comparator.reversed());
+        for (final int id : this.matched) {
+            if (packagePrefix.isEmpty() ||
+                    this.deobfNames.get(id).toLowerCase(Locale.ROOT).startsWith(packagePrefix) ||
+                    this.obfNames.get(id).toLowerCase(Locale.ROOT).startsWith(packagePrefix)) {
+                if (results.size() >= limit && comparator.compare(id, results.peek()) >= 0) continue;
+                results.add(id);
+                if (results.size() > limit) results.poll();
+            }
+        }
+
+        final List<Integer> sorted = new ArrayList<>(results);
+        sorted.sort(comparator);
+        final List<String> completions = new ArrayList<>(sorted.size());
+        for (final int id : sorted) {
+            completions.add(this.obfNames.get(id));
+        }
+
+        for (final int id : this.matched) {
+            this.matches[id] = -1;
+        }
+        this.matched.clear();
+        return completions;
+    }
+
+    private long rank(final int id) {
+        final String deobfName = this.deobfNames.get(id);
+        return ((long) this.matches[id] << 32) | (deobfName.length() - deobfName.lastIndexOf('/') - 1);
+    }
+
+    /**
+     * Walks the tree, character by character, matching the pattern.
+     *
+     * @param node The current node
+     * @param offset The offset within the node's label
+     * @param pattern The pattern
+     * @param index The index within the pattern
+     * @param skipping Whether the rest of the current hump is being skipped
+     * @param abbreviated Whether any of the name has been skipped
+     * @param previous The previous character of the name
+     */
+    private void match(final Node node, final int offset, final String pattern, final int index, final boolean skipping,
+            final boolean abbreviated, final char previous) {
+        // The whole pattern has been matched, so every name below matches
+        if (index == pattern.length()) {
+            node.collect(abbreviated ? HUMPS : PREFIX, this.matches, this.matched);
+            return;
+        }
+
+        if (offset == node.label.length()) {
+            for (final Node child : node.children) {
+                this.match(child, 0, pattern, index, skipping, abbreviated, previous);
+            }
+            return;
+        }
+
+        final char c = node.label.charAt(offset);
+        final boolean humpStart = isHumpStart(previous, c);
+        final char p = pattern.charAt(index);
+
+        // Match the character, if not skipping the rest of a hump
+        if ((!skipping || humpStart) && Character.toLowerCase(c) == Character.toLowerCase(p)) {
+            this.match(node, offset + 1, pattern, index + 1, false, abbreviated, c);
+        }
+
+        // Skip the rest of the current hump, once it has been started
+        if (index > 0 && !humpStart && c != '$' && c != '_') {
+            this.match(node, offset + 1, pattern, index, true, true, c);
+        }
+    }
+
+    private static boolean isHumpStart(final char previous, final char c) {
+        return previous == 0 ||
+                Character.isUpperCase(c) ||
+                previous == '$' || previous == '_' ||
+                (Character.isDigit(c) && !Character.isDigit(previous));
+    }
+
+    private void insert(final String key, final int id) {
+        Node node = this.root;
+        int index = 0;
+        while (index < key.length()) {
+            final Node child = node.getChild(key.charAt(index));
+            if (child == null) {
+                final Node leaf = new Node(key.substring(index));
+                node.addChild(leaf);
+                node = leaf;
+                break;
+            }
+
+            // Split the child, should the key diverge within its label
+            final int common = commonPrefix(child.label, key, index);
+            if (common < child.label.length()) {
+                child.split(common);
+            }
+            node = child;
+            index += common;
+        }
+        node.addId(id);
+    }
+
+    private void remove(final String key, final int id) {
+        Node node = this.root;
+        int index = 0;
+        while (index < key.length()) {
+            node = node.getChild(key.charAt(index));
+            if (node == null || !key.startsWith(node.label, index)) return;
+            index += node.label.length();
+        }
+        // note: emptied nodes are kept, as names are likely to be indexed again
+        node.removeId(id);
+    }
+
+    private static int commonPrefix(final String label, final String key, final int offset) {
+        int length = 0;
+        while (length < label.length() && offset + length < key.length() &&
+                label.charAt(length) == key.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private static String simpleName(final String name) {
+        return name.substring(name.lastIndexOf('/') + 1);
+    }
+
+    private static final class Node {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final int[] NO_IDS = new int[0];
+
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private int[] ids = NO_IDS;
+        private int idCount;
+
+        Node(final String label) {
+            this.label = label;
+        }
+
+        Node getChild(final char c) {
+            for (final Node child : this.children) {
+                if (child.label.charAt(0) == c) return child;
+            }
+            return null;
+        }
+
+        void addChild(final Node child) {
+            this.children = Arrays.copyOf(this.children, this.children.length + 1);
+            this.children[this.children.length - 1] = child;
+        }
+
+        void addId(final int id) {
+            if (this.idCount == this.ids.length) this.ids = Arrays.copyOf(this.ids, Math.max(this.idCount * 2, 1));
+            this.ids[this.idCount++] = id;
+        }
+
+        void removeId(final int id) {
+            for (int i = 0; i < this.idCount; i++) {
+                if (this.ids[i] == id) {
+                    this.ids[i] = this.ids[--this.idCount];
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Splits the node, so that its label ends at the given length -
+         * its children, and ids, moving to a new child.
+         */
+        void split(final int length) {
+            final Node child = new Node(this.label.substring(length));
+            child.children = this.children;
+            child.ids = this.ids;
+            child.idCount = this.idCount;
+
+            this.label = this.label.substring(0, length);
+            this.children = new Node[] { child };
+            this.ids = NO_IDS;
+            this.idCount = 0;
+        }
+
+        void collect(final int match, final int[] matches, final List<Integer> matched) {
+            for (int i = 0; i < this.idCount; i++) {
+                final int id = this.ids[i];
+                if (matches[id] == -1) matched.add(id);
+                if (matches[id] == -1 || match < matches[id]) matches[id] = match;
+            }
+            for (final Node child : this.children) {
+                child.collect(match, matches, matched);
+            }
+        }
+
+    }
+
+}
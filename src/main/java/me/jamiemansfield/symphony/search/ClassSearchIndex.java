@@ -0,0 +1,295 @@
+//******************************************************************************
+// Copyright (c) Jamie Mansfield <https://jamiemansfield.me/>
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, v. 2.0. If a copy of the MPL was not distributed with this
+// file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//******************************************************************************
+
+package me.jamiemansfield.symphony.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.UnaryOperator;
+
+/**
+ * A trigram index of the obfuscated and de-obfuscated names of classes,
+ * for fuzzy, ranked searches - answered without scanning every class.
+ * <p>
+ * Classes sharing enough of the query's trigrams are considered, so a
+ * query may contain a typo, and are then ranked against their current
+ * names. Queries too short to have trigrams are answered by a scan.
+ * <p>
+ * The index isn't thread-safe, though may be built on any thread.
+ *
+ * @author Jamie Mansfield
+ * @since 0.1.0
+ */
+public class ClassSearchIndex {
+
+    private static final int SCORE_EXACT = 1000;
+    private static final int SCORE_PREFIX = 800;
+    private static final int SCORE_SIMPLE = 600;
+    private static final int SCORE_FULL = 400;
+    private static final int SCORE_FUZZY = 200;
+
+    /**
+     * Creates an index of the given classes.
+     *
+     * @param klasses The obfuscated names of the classes
+     * @param deobfNames A function giving the de-obfuscated name of a class
+     * @return The index
+     */
+    public static ClassSearchIndex of(final Collection<String> klasses, final UnaryOperator<String> deobfNames) {
+        final ClassSearchIndex index = new ClassSearchIndex(klasses.size());
+        for (final String klass : klasses) {
+            index.add(klass, deobfNames.apply(klass));
+        }
+        return index;
+    }
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> obfNames;
+    private final List<String> deobfNames;
+    // The lower-cased names of each class, as indexed
+    private final List<String> keys;
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    // Scratch space for counting shared trigrams, cleared after each search
+    private int[] counts = new int[0];
+
+    private ClassSearchIndex(final int size) {
+        this.obfNames = new ArrayList<>(size);
+        this.deobfNames = new ArrayList<>(size);
+        this.keys = new ArrayList<>(size);
+    }
+
+    /**
+     * Gets the number of indexed classes.
+     *
+     * @return The number of classes
+     */
+    public int size() {
+        return this.obfNames.size();
+    }
+
+    /**
+     * Re-indexes the given classes, should their de-obfuscated names have
+     * changed. Classes that aren't indexed are ignored.
+     *
+     * @param klasses The obfuscated names of the classes
+     * @param deobfNames A function giving the de-obfuscated name of a class
+     */
+    public void update(final Collection<String> klasses, final UnaryOperator<String> deobfNames) {
+        for (final String klass : klasses) {
+            final Integer id = this.ids.get(klass);
+            if (id == null) continue;
+
+            final String deobfName = deobfNames.apply(klass);
+            if (deobfName.equals(this.deobfNames.get(id))) continue;
+
+            // Only the trigrams gained or lost by the rename are touched
+            final long[] previous = trigrams(this.keys.get(id));
+            final String key = key(klass, deobfName);
+            final long[] current = trigrams(key);
+            for (final long trigram : previous) {
+                if (Arrays.binarySearch(current, trigram) < 0) this.postings.get(trigram).remove(id);
+            }
+            for (final long trigram : current) {
+                if (Arrays.binarySearch(previous, trigram) < 0) this.postings.computeIfAbsent(trigram, k -> new Postings()).add(id);
+            }
+            this.deobfNames.set(id, deobfName);
+            this.keys.set(id, key);
+        }
+    }
+
+    /**
+     * Searches for classes matching the given query, best matches first.
+     *
+     * @param query The query, matched against both names of each class
+     * @param limit The maximum number of results
+     * @return The obfuscated names of the matching classes
+     */
+    public List<String> search(final String query, final int limit) {
+        final String normalised = query.trim().toLowerCase(Locale.ROOT).replace('.', '/');
+        if (normalised.isEmpty() || limit <= 0) return Collections.emptyList();
+
+        final PriorityQueue<Result> results = new PriorityQueue<>(limit + 1, Result.COMPARATOR.reversed());
+        final long[] trigrams = trigrams(normalised);
+
+        if (trigrams.length == 0) {
+            // Too short for trigrams, so every class is considered
+            for (int id = 0; id < this.size(); id++) {
+                this.offer(results, limit, id, this.score(id, normalised, 0, 0));
+            }
+        }
+        else {
+            // Count the trigrams each class shares with the query, considering
+            // those sharing at least half of them
+            if (this.counts.length < this.size()) this.counts = new int[this.size()];
+            final List<Postings> lists = new ArrayList<>(trigrams.length);
+            for (final long trigram : trigrams) {
+                final Postings list = this.postings.get(trigram);
+                if (list != null) lists.add(list);
+            }
+            final int threshold = (trigrams.length + 1) / 2;
+            final Postings candidates = new Postings();
+            for (final Postings list : lists) {
+                for (int i = 0; i < list.size; i++) {
+                    if (++this.counts[list.ids[i]] == threshold) candidates.add(list.ids[i]);
+                }
+            }
+
+            for (int i = 0; i < candidates.size; i++) {
+                final int id = candidates.ids[i];
+                this.offer(results, limit, id, this.score(id, normalised, this.counts[id], trigrams.length));
+            }
+            for (final Postings list : lists) {
+                for (int i = 0; i < list.size; i++) {
+                    this.counts[list.ids[i]] = 0;
+                }
+            }
+        }
+
+        final Result[] sorted = results.toArray(new Result[0]);
+        Arrays.sort(sorted, Result.COMPARATOR);
+        final List<String> klasses = new ArrayList<>(sorted.length);
+        for (final Result result : sorted) {
+            klasses.add(this.obfNames.get(result.id));
+        }
+        return klasses;
+    }
+
+    private void offer(final PriorityQueue<Result> results, final int limit, final int id, final int score) {
+        if (score == 0) return;
+        final int length = this.deobfNames.get(id).length();
+        if (results.size() >= limit && Result.compare(score, length, id, results.peek()) > 0) return;
+        results.add(new Result(id, score, length));
+        if (results.size() > limit) results.poll();
+    }
+
+    private int score(final int id, final String query, final int shared, final int total) {
+        final String key = this.keys.get(id);
+        final int separator = key.indexOf('\n');
+        final int score = separator == -1 ?
+                score(key, 0, key.length(), query) :
+                Math.max(score(key, 0, separator, query), score(key, separator + 1, key.length(), query));
+        if (score != 0 || total == 0) return score;
+        return SCORE_FUZZY * shared / total;
+    }
+
+    private static int score(final String key, final int start, final int end, final String query) {
+        final int simpleStart = Math.max(key.lastIndexOf('/', end - 1) + 1, start);
+        final int simpleLength = end - simpleStart;
+        if (key.startsWith(query, simpleStart)) {
+            return simpleLength == query.length() ?
+                    SCORE_EXACT :
+                    SCORE_PREFIX - Math.min(simpleLength, SCORE_PREFIX - SCORE_SIMPLE - 1);
+        }
+
+        final int index = key.indexOf(query, start);
+        if (index == -1 || index + query.length() > end) return 0;
+        if (index >= simpleStart) return SCORE_SIMPLE - Math.min(index - simpleStart, SCORE_SIMPLE - SCORE_FULL - 1);
+
+        // The query may also lie within the simple name, past its first match
+        final int simpleIndex = key.indexOf(query, simpleStart);
+        if (simpleIndex != -1 && simpleIndex + query.length() <= end) {
+            return SCORE_SIMPLE - Math.min(simpleIndex - simpleStart, SCORE_SIMPLE - SCORE_FULL - 1);
+        }
+        return SCORE_FULL;
+    }
+
+    private void add(final String klass, final String deobfName) {
+        final int id = this.obfNames.size();
+        this.ids.put(klass, id);
+        this.obfNames.add(klass);
+        this.deobfNames.add(deobfName);
+        final String key = key(klass, deobfName);
+        this.keys.add(key);
+        for (final long trigram : trigrams(key)) {
+            this.postings.computeIfAbsent(trigram, k -> new Postings()).add(id);
+        }
+    }
+
+    private static String key(final String obfName, final String deobfName) {
+        // note: the names are separated, so no trigram spans both
+        return obfName.equals(deobfName) ?
+                obfName.toLowerCase(Locale.ROOT) :
+                (obfName + '\n' + deobfName).toLowerCase(Locale.ROOT);
+    }
+
+    private static long[] trigrams(final String string) {
+        final long[] trigrams = new long[Math.max(string.length() - 2, 0)];
+        int count = 0;
+        for (int i = 0; i + 2 < string.length(); i++) {
+            final char a = string.charAt(i);
+            final char b = string.charAt(i + 1);
+            final char c = string.charAt(i + 2);
+            if (a == '\n' || b == '\n' || c == '\n') continue;
+            trigrams[count++] = ((long) a << 32) | ((long) b << 16) | c;
+        }
+
+        // Remove duplicates
+        Arrays.sort(trigrams, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || trigrams[unique - 1] != trigrams[i]) trigrams[unique++] = trigrams[i];
+        }
+        return Arrays.copyOf(trigrams, unique);
+    }
+
+    /**
+     * The classes containing a trigram.
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(final int id) {
+            if (this.size == this.ids.length) this.ids = Arrays.copyOf(this.ids, this.size * 2);
+            this.ids[this.size++] = id;
+        }
+
+        void remove(final int id) {
+            for (int i = 0; i < this.size; i++) {
+                if (this.ids[i] == id) {
+                    this.ids[i] = this.ids[--this.size];
+                    return;
+                }
+            }
+        }
+
+    }
+
+    private static final class Result {
+
+        // Best matches first, then shorter names
+        static final Comparator<Result> COMPARATOR = (a, b) -> compare(a.score, a.length, a.id, b);
+
+        static int compare(final int score, final int length, final int id, final Result that) {
+            if (score != that.score) return Integer.compare(that.score, score);
+            if (length != that.length) return Integer.compare(length, that.length);
+            return Integer.compare(id, that.id);
+        }
+
+        private final int id;
+        private final int score;
+        private final int length;
+
+        Result(final int id, final int score, final int length) {
+            this.id = id;
+            this.score = score;
+            this.length = length;
+        }
+
+    }
+
+}